@@ -1,6 +1,7 @@
 package com.gaspar.pdfextractor;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -29,6 +30,11 @@ public class App {
 	 */
 	private static Logger logger;
 	
+	/**
+	 * Az aszinkron I/O végrehajtó, csak '-execution=async-io' esetén van, egyébként null.
+	 */
+	private static AsyncIoExtractor asyncIoExtractor;
+	
 	/**
 	 * Belépési pont.
 	 * @param args JVM által átadott nyers argumentumok.
@@ -50,6 +56,18 @@ public class App {
     	//üzenetküldő létrehozása
     	logger = new Logger(arguments);
     	
+    	//feladatfájl beolvasása, ha van: minden sora előre ellenőrizve lesz
+    	List<JobFile.Job> jobs = null;
+    	if(arguments.getJobFile() != null) {
+    		try {
+    			jobs = JobFile.read(arguments);
+    		} catch(IllegalArgumentException e) {
+    			logger.logError("Hibás feladatfájl: " + e.getMessage());
+    			logger.closeLogFileIfNeeded();
+    			return;
+    		}
+    	}
+    	
     	final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd, HH:mm:ss");
     	LocalDateTime now = LocalDateTime.now();
     	String timestamp = formatter.format(now);
@@ -66,56 +84,213 @@ public class App {
     	
     	long startTime = System.currentTimeMillis();
     	logger.log("Kezdem a futásidő mérését.");
+    	
+    	if(arguments.isJmx()) {
+    		ExtractionMetrics.getInstance().register(logger);
+    	}
+    	TextFileWriter writer = new TextFileWriter(arguments.getDurability(), arguments.getGroupFiles(), arguments.getGroupMillis(), 
+    			arguments.isSkipUnchanged());
+    	TextExtractor.setWriter(writer);
+    	if(arguments.getExecution().equals(CommandLineArguments.EXECUTION_ASYNC_IO)) {
+    		asyncIoExtractor = new AsyncIoExtractor(logger);
+    	}
+    	//keresőindex, a kinyert szavakból épül
+    	InvertedIndex index = null;
+    	if(arguments.getIndexFolder() != null) {
+    		index = new InvertedIndex();
+    		TextExtractor.addListener(index);
+    	}
+    	//közel azonos PDF-ek keresése
+    	NearDuplicateDetector duplicateDetector = null;
+    	if(arguments.isDuplicateDetection()) {
+    		duplicateDetector = new NearDuplicateDetector();
+    		TextExtractor.addListener(duplicateDetector);
+    	}
+    	//szövegek minőségének mérése
+    	TextQualityAnalyzer qualityAnalyzer = null;
+    	if(arguments.isQualityAnalysis()) {
+    		qualityAnalyzer = new TextQualityAnalyzer();
+    		TextExtractor.addListener(qualityAnalyzer);
+    	}
 		
-		//list the PDF files in the working directory
-    	logger.log("Listázom a feldolgozandó PDF fájlokat.");
-		final List<File> pdfFiles = listPdfFiles();
-		if(pdfFiles.isEmpty()) {
-			logger.logError("Egy PDF fájl sem felelt meg a kritériumoknak!");
+		int pdfCount;
+		boolean userInput; //volt-e felhasználói bemenetre várakozás
+		if(jobs != null) {
+			pdfCount = runJobs(jobs);
+			userInput = jobs.stream().anyMatch(job -> job.getArguments().getOverwrite().equals(CommandLineArguments.OVERWRITE_SELECT));
 		} else {
-			logger.log("Összesen " + pdfFiles.size() + " megfelelő PDF fájlt találtam, indul a kinyerés.");
+			pdfCount = runJob(arguments);
+			userInput = arguments.getOverwrite().equals(CommandLineArguments.OVERWRITE_SELECT);
+		}
+		if(asyncIoExtractor != null) {
+			asyncIoExtractor.shutdown();
 		}
+		writer.close(); //a csoportban még váró fájlok kiírása
 		
-		//összes fájl átadása kinyerésre
-		for(File pdfFile: pdfFiles) {
-			TextExtractor extractor = new TextExtractor(pdfFile.getAbsolutePath(), arguments.getOverwrite(), logger);
-			extractor.extractText();
+		if(index != null) {
+			writeIndex(index);
+		}
+		if(duplicateDetector != null) {
+			reportNearDuplicates(duplicateDetector);
+		}
+		if(qualityAnalyzer != null) {
+			reportTextQuality(qualityAnalyzer);
 		}
 		
 		long endTime = System.currentTimeMillis();
 		long executionTime = endTime - startTime;
 		String timeMessage = "Az kinyerés véget ért, a futásidő: " + executionTime + " ezredmásodperc.";
-		if(arguments.getOverwrite().equals(CommandLineArguments.OVERWRITE_SELECT)) {
+		if(userInput) {
 			timeMessage += " Figyelem: ebben a felhasználói bemenetre való várakozás is benne van!";
 		}
 		logger.log(timeMessage);
 		//minden befejeződik
-		String finalMessage = "Siker! Összesen " + TextExtractor.getWordCount() + " szó lett kinyerve " + pdfFiles.size() + " darab PDF fájlból, " + executionTime + " ezredmásodperc alatt!";
+		String finalMessage = "Siker! Összesen " + TextExtractor.getWordCount() + " szó lett kinyerve " + pdfCount + " darab PDF fájlból, " + executionTime + " ezredmásodperc alatt!";
 		logger.logUnmutable(finalMessage); //ez mindig kiíródik
 		logger.closeLogFileIfNeeded();
     }
     
     /**
-     * Egy listába rakja azokat a PDF fájlokat, amelyeket fel kell dolgozni. Ez a {@link #arguments} 
+     * Lefuttat egy feladatot: kilistázza a feladat PDF fájljait, és kinyeri belőlük a szöveget.
+     * @param job A feladat argumentumai.
+     * @return A feldolgozott PDF fájlok száma.
+     */
+    private static int runJob(CommandLineArguments job) {
+		//list the PDF files in the working directory
+    	logger.log("Listázom a feldolgozandó PDF fájlokat.");
+		List<File> pdfFiles = listPdfFiles(job);
+		if(pdfFiles.isEmpty()) {
+			logger.logError("Egy PDF fájl sem felelt meg a kritériumoknak!");
+		} else {
+			logger.log("Összesen " + pdfFiles.size() + " megfelelő PDF fájlt találtam, indul a kinyerés.");
+		}
+		ExtractionMetrics.getInstance().filesFound(pdfFiles.size());
+		
+		//csoportok felváltva, ha kell
+		FairScheduler scheduler = null;
+		if(arguments.getGroupBy() != null && !job.getMode().equals(CommandLineArguments.MODE_SINGLE)) {
+			scheduler = new FairScheduler(new File(job.getFolder()), arguments.getGroupBy(), arguments.getWeights());
+			pdfFiles = scheduler.schedule(pdfFiles);
+		}
+		
+		//összes fájl átadása kinyerésre
+		if(asyncIoExtractor != null) {
+			asyncIoExtractor.extractAll(pdfFiles, job.getOverwrite(), arguments.getFormat(), scheduler != null ? scheduler::fileDone : pdfFile -> {});
+		} else {
+			for(File pdfFile: pdfFiles) {
+				TextExtractor extractor = new TextExtractor(pdfFile.getAbsolutePath(), job.getOverwrite(), arguments.getFormat(), logger);
+				extractor.extractText();
+				if(scheduler != null) scheduler.fileDone(pdfFile);
+			}
+		}
+		if(scheduler != null) {
+			scheduler.report(logger);
+		}
+		return pdfFiles.size();
+    }
+    
+    /**
+     * Egymás után lefuttatja a feladatfájl feladatait. Ugyanazt a végrehajtót és figyelőket használják (így például 
+     * a szálak és a bemelegedett JIT kód is közös), minden feladat után összesítés íródik ki.
+     * @param jobs A feladatok.
+     * @return Az összes feladatban feldolgozott PDF fájlok száma.
+     */
+    private static int runJobs(List<JobFile.Job> jobs) {
+    	int pdfCount = 0;
+    	int number = 1;
+    	for(JobFile.Job job: jobs) {
+    		logger.log("-----------------------------------------------------------------------");
+    		logger.log(number + "/" + jobs.size() + ". feladat (a feladatfájl " + job.getLineNumber() + ". sora): " + job.getLine());
+    		long jobStart = System.currentTimeMillis();
+    		long wordsBefore = TextExtractor.getWordCount();
+    		int jobPdfCount = runJob(job.getArguments());
+    		pdfCount += jobPdfCount;
+    		long jobTime = System.currentTimeMillis() - jobStart;
+    		logger.log(number + ". feladat kész: " + (TextExtractor.getWordCount() - wordsBefore) + " szó " + jobPdfCount + " darab PDF fájlból, " + jobTime + " ezredmásodperc alatt.");
+    		number++;
+    	}
+    	logger.log("-----------------------------------------------------------------------");
+    	logger.log("Mind a " + jobs.size() + " feladat lefutott, összesen " + pdfCount + " darab PDF fájl feldolgozásával.");
+    	return pdfCount;
+    }
+    
+    /**
+     * Kiírja a keresőindexet a '-index' mappába.
+     * @param index Az index.
+     */
+    private static void writeIndex(InvertedIndex index) {
+    	File folder = new File(arguments.getIndexFolder());
+    	try {
+    		index.write(folder);
+    		logger.log("A keresőindex elkészült (" + index.getDocumentCount() + " PDF, " + index.getTermCount() + " szó): " + folder.getAbsolutePath());
+    	} catch (IOException e) {
+    		logger.logError("A keresőindexet nem sikerült kiírni a " + folder.getAbsolutePath() + " mappába: " + e.getMessage());
+    	}
+    }
+    
+    /**
+     * Kiírja a közel azonos szövegű PDF-ek csoportjait.
+     * @param detector Ez kapta meg a kinyert szövegeket.
+     */
+    private static void reportNearDuplicates(NearDuplicateDetector detector) {
+    	List<List<String>> clusters = detector.findClusters();
+    	if(clusters.isEmpty()) {
+    		logger.log("A " + detector.getDocumentCount() + " szöveget tartalmazó PDF között nincsenek közel azonosak.");
+    		return;
+    	}
+    	logger.log("Közel azonos szövegű PDF-ek, " + clusters.size() + " csoportban:");
+    	int number = 1;
+    	for(List<String> cluster: clusters) {
+    		logger.log(number++ + ". csoport (" + cluster.size() + " PDF):");
+    		for(String path: cluster) {
+    			logger.log("    " + path);
+    		}
+    	}
+    }
+    
+    /**
+     * Kiírja a kinyert szövegek minőségi statisztikáit, és a megjelölt PDF-eket.
+     * @param analyzer Ez kapta meg a kinyert szövegeket.
+     */
+    private static void reportTextQuality(TextQualityAnalyzer analyzer) {
+    	List<TextQualityAnalyzer.Result> results = analyzer.getResults();
+    	logger.log("A kinyert szövegek minősége:");
+    	int flagged = 0;
+    	for(TextQualityAnalyzer.Result result: results) {
+    		String reason = result.getFlagReason();
+    		if(reason != null) {
+    			flagged++;
+    			logger.log("    " + result + " -> MEGJELÖLVE (" + reason + ")");
+    		} else {
+    			logger.log("    " + result);
+    		}
+    	}
+    	if(flagged > 0) {
+    		logger.logUnmutable(flagged + " PDF kinyert szövege valószínűleg hibás, ezeket érdemes OCR-el feldolgozni (lásd a 'MEGJELÖLVE' sorokat).");
+    	}
+    }
+    
+    /**
+     * Egy listába rakja azokat a PDF fájlokat, amelyeket fel kell dolgozni. Ez a feladat argumentumainak 
      * értékeitől függ (főleg a módtól).
+     * @param job A feladat argumentumai.
      * @return A PDF-ek listája.
      */
-    private static List<File> listPdfFiles() {
-    	boolean recursive = arguments.isRecursive();
-    	if(arguments.getMode().equals(CommandLineArguments.MODE_SINGLE)) { //egy fájl
+    private static List<File> listPdfFiles(CommandLineArguments job) {
+    	boolean recursive = job.isRecursive();
+    	if(job.getMode().equals(CommandLineArguments.MODE_SINGLE)) { //egy fájl
     		
-    		String path = arguments.getPath();
+    		String path = job.getPath();
     		logger.log("Egy fájlos mód. A PDF fájl útvonala: " + path);
     		return Arrays.asList(new File(path));
     		
-    	} else if(arguments.getMode().equals(CommandLineArguments.MODE_REGEX)) { //regex mód
+    	} else if(job.getMode().equals(CommandLineArguments.MODE_REGEX)) { //regex mód
     		
     		logger.log("Regexnek megfelelő PDF fájlok keresése, " + (recursive ? "rekurzívan." : "nem rekurzívan."));
-    		logger.log("A regex: " + arguments.getRegex());
-    		String[] filter = {"pdf"};
-    		List<File> pdfFiles = (List<File>)FileUtils.listFiles(new File(arguments.getFolder()), filter, recursive);
+    		logger.log("A regex: " + job.getRegex());
+    		List<File> pdfFiles = listPdfFilesInFolder(job, recursive);
   
-    		final Pattern regex = Pattern.compile(arguments.getRegex());
+    		final Pattern regex = Pattern.compile(job.getRegex());
     		int sizeBefore = pdfFiles.size();
     		pdfFiles.removeIf(file -> {
     			String name = file.getName();
@@ -129,12 +304,27 @@ public class App {
     	} else { //csak az 'all' maradt
     		
     		logger.log("Minden ebben a mappában lévő PDF fájl keresése, " + (recursive ? "rekurzívan." : "nem rekurzívan."));
-    		String[] filter = {"pdf"};
-    		final List<File> pdfFiles = (List<File>)FileUtils.listFiles(new File(arguments.getFolder()), filter, recursive);
+    		final List<File> pdfFiles = listPdfFilesInFolder(job, recursive);
     		return pdfFiles;
     	}
     }
     
+    /**
+     * Kilistázza a '-folder' mappában lévő PDF fájlokat. Aszinkron I/O módban a mappák listázása 
+     * párhuzamosan történik.
+     * @param job A feladat argumentumai.
+     * @param recursive Kell-e az almappákban is keresni.
+     * @return A PDF-ek listája, ami módosítható.
+     */
+    private static List<File> listPdfFilesInFolder(CommandLineArguments job, boolean recursive) {
+    	File folder = new File(job.getFolder());
+    	if(asyncIoExtractor != null) {
+    		return asyncIoExtractor.listPdfFiles(folder, recursive);
+    	}
+    	String[] filter = {"pdf"};
+    	return (List<File>)FileUtils.listFiles(folder, filter, recursive);
+    }
+    
 	/**
 	 * Gets the path to the folder in which the app is running. The \ is not 
 	 * included in the end of the path.
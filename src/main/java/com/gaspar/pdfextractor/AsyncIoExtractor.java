@@ -0,0 +1,226 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.itextpdf.text.pdf.PdfReader;
+
+/**
+ * Runs the extraction in the '-execution=async-io' mode. The blocking file operations (directory listing, reading
+ * the PDF files, writing the text files) run on virtual threads, so many of them can be in flight when the storage
+ * has high latency. The CPU bound part (parsing the PDF and extracting the text) runs on a platform thread pool
+ * which has as many threads as there are processor cores.
+ * <p>
+ * Virtual threads are only available from Java 21. On older JVMs a fixed size pool of platform threads
+ * ({@link #FALLBACK_IO_THREADS}) is used for the file operations instead.
+ * <p>
+ * The number of PDF files in flight is adjusted by a {@link ConcurrencyController}, based on the throughput and the heap occupancy.
+ * @author Gáspár Tamás
+ */
+public class AsyncIoExtractor {
+
+	/**
+	 * Number of I/O threads if virtual threads are not supported by the JVM.
+	 */
+	private static final int FALLBACK_IO_THREADS = 64;
+
+	/**
+	 * How many PDF files may be read ahead for each CPU thread at most. This limits how many PDF files
+	 * are held in memory at the same time.
+	 */
+	private static final int READ_AHEAD_PER_CPU_THREAD = 4;
+
+	/**
+	 * Logger object.
+	 */
+	private final Logger logger;
+
+	/**
+	 * Runs the blocking file operations.
+	 */
+	private final ExecutorService ioExecutor;
+
+	/**
+	 * Runs the PDF parsing, sized to the processor cores.
+	 */
+	private final ExecutorService cpuExecutor;
+
+	/**
+	 * Limits the number of PDF files that are read, but not yet written.
+	 */
+	private final ConcurrencyController inFlight;
+
+	/**
+	 * Creates the executors.
+	 * @param logger Logger object.
+	 */
+	public AsyncIoExtractor(Logger logger) {
+		this.logger = logger;
+		int cpuThreads = Runtime.getRuntime().availableProcessors();
+		this.cpuExecutor = Executors.newFixedThreadPool(cpuThreads, namedDaemonThreads("pdf-cpu-"));
+		this.ioExecutor = createIoExecutor(logger);
+		logger.log("Aszinkron I/O mód: " + cpuThreads + " szál a PDF-ek értelmezéséhez.");
+		this.inFlight = new ConcurrencyController(1, cpuThreads, cpuThreads * READ_AHEAD_PER_CPU_THREAD, logger);
+	}
+
+	/**
+	 * Creates an executor that starts a virtual thread for every task, or a fixed thread pool if
+	 * the JVM does not support virtual threads. Reflection is used, so that this compiles for older Java versions.
+	 * @param logger Logger object.
+	 * @return The executor.
+	 */
+	private static ExecutorService createIoExecutor(Logger logger) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			ExecutorService executor = (ExecutorService)factory.invoke(null);
+			logger.log("A fájlműveletek virtuális szálakon futnak.");
+			return executor;
+		} catch (ReflectiveOperationException e) {
+			logger.log("Ez a JVM nem támogatja a virtuális szálakat, a fájlműveletek " + FALLBACK_IO_THREADS + " I/O szálon futnak.");
+			return Executors.newFixedThreadPool(FALLBACK_IO_THREADS, namedDaemonThreads("pdf-io-"));
+		}
+	}
+
+	private static ThreadFactory namedDaemonThreads(String prefix) {
+		final AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Lists the PDF files in a folder. Every folder is listed in a separate I/O task, so the
+	 * subfolders are listed concurrently. Symbolic links to folders are not followed.
+	 * @param folder The folder.
+	 * @param recursive If the subfolders should be searched too.
+	 * @return The PDF files, ordered by their path.
+	 */
+	public List<File> listPdfFiles(File folder, boolean recursive) {
+		final ConcurrentLinkedQueue<File> found = new ConcurrentLinkedQueue<>();
+		listFolder(folder, recursive, found).join();
+		List<File> pdfFiles = new ArrayList<>(found);
+		pdfFiles.sort(Comparator.comparing(File::getPath));
+		return pdfFiles;
+	}
+
+	private CompletableFuture<Void> listFolder(File folder, boolean recursive, ConcurrentLinkedQueue<File> found) {
+		return CompletableFuture.supplyAsync(folder::listFiles, ioExecutor).thenCompose(children -> {
+			if(children == null) { //not a folder, or can't be read
+				return CompletableFuture.completedFuture(null);
+			}
+			List<CompletableFuture<Void>> subfolders = new ArrayList<>();
+			for(File child: children) {
+				if(child.isDirectory()) {
+					//links to folders are not followed (like in the sequential mode), so a link loop can't make the listing endless
+					if(recursive && !Files.isSymbolicLink(child.toPath())) subfolders.add(listFolder(child, true, found));
+				} else if(child.getName().endsWith(".pdf")) {
+					found.add(child);
+				}
+			}
+			return CompletableFuture.allOf(subfolders.toArray(new CompletableFuture<?>[0]));
+		});
+	}
+
+	/**
+	 * Extracts the text from all PDF files and waits until all of them are done.
+	 * @param pdfFiles The PDF files.
+	 * @param overwrite Overwrite mode, cannot be select.
+	 * @param format Output format.
+	 */
+	public void extractAll(List<File> pdfFiles, String overwrite, String format) {
+		extractAll(pdfFiles, overwrite, format, pdfFile -> {});
+	}
+
+	/**
+	 * Extracts the text from all PDF files and waits until all of them are done. The PDF files are started in the order of the list.
+	 * @param pdfFiles The PDF files.
+	 * @param overwrite Overwrite mode, cannot be select.
+	 * @param format Output format.
+	 * @param done Called when a PDF is done (extracted, skipped or failed), from any thread.
+	 */
+	public void extractAll(List<File> pdfFiles, String overwrite, String format, Consumer<File> done) {
+		List<CompletableFuture<Void>> tasks = new ArrayList<>(pdfFiles.size());
+		for(File pdfFile: pdfFiles) {
+			TextExtractor extractor = new TextExtractor(pdfFile.getAbsolutePath(), overwrite, format, logger);
+			inFlight.acquire();
+			tasks.add(extract(extractor).whenComplete((v, t) -> {
+				inFlight.release();
+				done.accept(pdfFile);
+			}));
+		}
+		CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+	}
+
+	/**
+	 * Reading and writing runs on the {@link #ioExecutor}, extracting on the {@link #cpuExecutor}. In jsonl format the records
+	 * of the pages are handed to the {@link #ioExecutor} as they are extracted.
+	 * @param extractor The extractor of the PDF.
+	 * @return Completes when the PDF is done. It is always completed normally, errors are logged.
+	 */
+	private CompletableFuture<Void> extract(TextExtractor extractor) {
+		return CompletableFuture.supplyAsync(() -> {
+			extractor.started();
+			if(!extractor.checkOverwrite()) return null;
+			try {
+				byte[] pdfBytes = Files.readAllBytes(new File(extractor.getPath()).toPath());
+				//in jsonl format the records are written on the I/O threads while the pages are extracted
+				extractor.openOutput();
+				extractor.setRecordExecutor(ioExecutor);
+				return pdfBytes;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, ioExecutor).thenApplyAsync(pdfBytes -> {
+			if(pdfBytes == null) return null;
+			try {
+				PdfReader reader = new PdfReader(pdfBytes);
+				try {
+					if(extractor.isSkippedAsEncrypted(reader)) return null;
+					String pdfText = extractor.extractPages(reader);
+					inFlight.pagesExtracted(reader.getNumberOfPages());
+					return pdfText;
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, cpuExecutor).thenAcceptAsync(pdfText -> {
+			if(pdfText == null) return;
+			try {
+				extractor.writeText(pdfText);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, ioExecutor).exceptionally(t -> {
+			Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+			extractor.logFailure(cause instanceof UncheckedIOException ? cause.getCause() : cause);
+			return null;
+		});
+	}
+
+	/**
+	 * Stops the executors and the concurrency controller.
+	 */
+	public void shutdown() {
+		inFlight.shutdown();
+		ioExecutor.shutdown();
+		cpuExecutor.shutdown();
+	}
+}
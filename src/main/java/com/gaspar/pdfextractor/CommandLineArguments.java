@@ -35,6 +35,41 @@ import org.apache.commons.io.FilenameUtils;
  * <li>-logfile: Ezzel lehet megadni egy fájl RELATÍV útvonalát, ahova bekerülnek a feldolgozással kapcsolatos információk (ezek ugyanazok, mint amik a konzolra is 
  * kiíródnak, ha nincs megadott '-mute'. Ha ez a fájl létezik, akkor felül fog íródni. Például ha egy 'log.txt' szövegfájlba kérjük a logot, ami a JAR mappájába kerül, akkor 
  * '-logfile=log.txt' az argumentum. Egy speciális értéke az 'auto', ilyenkor a log fájl neve automatikusan kerül generálásra. Alapértéke (ha nem adjuk meg) az, hogy nem lesz log fájl</li>
+ * <li>-execution: A feldolgozás végrehajtási módja. Lehet 'sequential', ami egyesével dolgozza fel a PDF-eket. Lehet 'async-io', ahol a fájlok olvasása, írása és 
+ * a mappák listázása virtuális szálakon (ha a JVM ezt nem támogatja, akkor egy I/O szálkészleten) fut, a PDF-ek értelmezése pedig a processzormagok számának megfelelő 
+ * szálon. Ez lassú (például hálózati) tárolónál hasznos. Az 'async-io' nem használható a '-overwrite=select' argumentummal. Alapértéke a 'sequential'.</li>
+ * <li>-index: Ha meg van adva, akkor a kinyerés közben egy teljes szöveges keresőindex is készül a megadott mappába (ha nem létezik, akkor létrejön). Az index 
+ * minden szóhoz tárolja, hogy melyik PDF melyik oldalán szerepel, és a {@link IndexQuery} osztállyal lehet benne keresni. Csak a ténylegesen kinyert 
+ * PDF-ek kerülnek bele. Alapértékben nem készül index.</li>
+ * <li>-duplicates: Ha ez meg van adva, akkor a kinyerés közben minden PDF szövegéből egy MinHash lenyomat készül, és a futás végén a program kiírja a közel azonos 
+ * szövegű PDF-ek csoportjait (például ugyanannak a dokumentumnak az újramentett vagy újraszkennelt változatait). Alapértékben ki van kapcsolva.</li>
+ * <li>-quality: Ha ez meg van adva, akkor a kinyerés közben minden PDF szövegéről minőségi statisztika készül (nyomtatható karakterek aránya, helyettesítő karakterek 
+ * aránya, hibás karakterkódolás, becsült nyelv), ami a futás végén kiíródik. A valószínűleg hibás kinyerésű (vagy szöveg nélküli) PDF-ek meg lesznek jelölve, ezeket 
+ * érdemes OCR-el feldolgozni. Alapértékben ki van kapcsolva.</li>
+ * <li>-jmx: Ha ez meg van adva, akkor a futás közben élő számlálók (kész, kihagyott, hibás és hátralévő PDF-ek, szavak, oldalak, oldal/másodperc, 
+ * feldolgozás alatt álló fájlok) egy JMX MBean-en keresztül lekérdezhetők, például JConsole-lal. Alapértékben ki van kapcsolva.</li>
+ * <li>-format: A kimeneti fájlok formátuma. Lehet 'txt', ami a PDF nevével azonos nevű szövegfájlba írja a szöveget, az oldalakat sortörés választja el. Lehet 
+ * 'jsonl', ami egy azonos nevű .jsonl fájlba (JSON Lines, UTF-8) oldalanként egy JSON rekordot ír: az oldal száma ("page"), az oldalak száma ("pageCount"), az 
+ * oldal kezdete karakterekben a txt formátumú szövegben ("offset"), az oldal szavainak száma ("words") és az oldal szövege ("text"). Így az oldalhatárok megmaradnak. 
+ * Alapértéke a 'txt'.</li>
+ * <li>-durability: Mikor kerüljenek a kiírt fájlok ténylegesen a lemezre (fsync). A fájlok mindig egy ideiglenes fájlba íródnak, ami utána egy lépésben 
+ * átnevezésre kerül, így félig megírt fájl nem látszik. Lehet 'none', ekkor nincs fsync, ez a leggyorsabb, de a gép összeomlásakor az utolsó fájlok elveszhetnek. 
+ * Lehet 'file', ekkor minden fájl a lemezre kerül, mielőtt a program továbbmegy. Lehet 'group', ekkor a fájlok csoportosan kerülnek a lemezre és csak akkor 
+ * jelennek meg, amikor összegyűlt {@value #DEFAULT_GROUP_FILES} fájl, vagy a legrégebbi {@value #DEFAULT_GROUP_MILLIS} ezredmásodperce vár. Ezek a számok így 
+ * adhatók meg: '-durability=group:100:500' (100 fájl vagy 500 ezredmásodperc). Alapértéke a 'none'.</li>
+ * <li>-skipUnchanged: Ha ez meg van adva, akkor egy már létező kimeneti fájl nem íródik újra, ha a tartalma nem változna, így a módosítási ideje is megmarad. 
+ * Ehhez minden kiírt fájl SHA-256 lenyomata eltárolódik a fájl kiterjesztett attribútumában, vagy ha ezt a fájlrendszer nem támogatja, egy mellette lévő 
+ * '.sha256' fájlban. Alapértékben ki van kapcsolva.</li>
+ * <li>-groupBy: Ha meg van adva, akkor a PDF-ek csoportokba kerülnek, és a csoportok felváltva kerülnek sorra, így egy nagy mappa nem tartja fel a többit. 
+ * Ha az értéke 'folder', akkor a csoport a PDF legfelső almappája (a '-folder' mappán belül). Minden más érték egy regex, ami a PDF '-folder'-hez viszonyított 
+ * útvonalában keresi a csoportot (az első zárójeles része, vagy ha nincs ilyen, akkor a teljes egyezés). A futás végén kiíródik a csoportok késleltetése. 
+ * Alapértékben ki van kapcsolva.</li>
+ * <li>-weights: A '-groupBy' csoportjainak súlyai, például '-weights=szamlak:3,hr:2'. Egy csoport a súlyának megfelelő arányban kerül sorra, a meg nem adott 
+ * csoportok súlya 1.</li>
+ * <li>-jobs: Egy feladatfájl útvonala, amiben soronként egy-egy feladat van. Egy feladat a '-mode', '-folder', '-path', '-pathType', '-regex', '-recursive' és 
+ * '-overwrite' argumentumokból állhat, ugyanúgy megadva, mint a parancssorban. Az üres és a '#'-el kezdődő sorok kimaradnak. Minden feladat ugyanabban a JVM-ben, 
+ * egymás után fut, és közösen használják a szálakat, a keresőindexet, stb. Ilyenkor a feladat argumentumait nem lehet a parancssorban megadni, ott csak a 
+ * közös argumentumok (például '-mute', '-logfile', '-execution') állhatnak. Lásd: {@link JobFile}.</li>
  * </ul>
  * Példák:
  * <br>
@@ -71,13 +106,53 @@ public class CommandLineArguments {
 	 * @throws IllegalArgumentException Ha az argumentumok nem értelmesek.
 	 */
 	public CommandLineArguments(String[] args) throws IllegalArgumentException {
+		this(args, false);
+	}
+	
+	/**
+	 * Konstruktor, ami a feladatfájl egy sorát is fel tudja dolgozni.
+	 * @param args A parancssori argumentumok, vagy a feladatfájl egy sorának darabjai.
+	 * @param job Igaz, ha ez a feladatfájl egy sora. Ilyenkor csak a feladat argumentumai szerepelhetnek benne.
+	 * @throws IllegalArgumentException Ha az argumentumok nem értelmesek.
+	 */
+	CommandLineArguments(String[] args, boolean job) throws IllegalArgumentException {
 		arguments = new HashMap<>();
 		for(String arg: args) {
 			parseArgument(arg);
 		}
+		if(job && containsGlobalArguments()) {
+			throw new IllegalArgumentException("Egy feladatban csak ezek az argumentumok szerepelhetnek: " + Arrays.toString(JOB_ARGUMENTS) + "!");
+		}
+		if(arguments.containsKey(JOBS) && containsJobArguments()) {
+			throw new IllegalArgumentException("A '-jobs' mellett nem lehet feladat argumentumokat megadni " + Arrays.toString(JOB_ARGUMENTS) + ", ezek a feladatfájl soraiba kerülnek!");
+		}
 		applyDefaultValues();
 	}
 	
+	/**
+	 * Megnézi, hogy a felhasználó adott-e meg egy feladathoz tartozó argumentumot (lásd {@link #JOB_ARGUMENTS}). Csak 
+	 * az alapértékek beállítása előtt van értelme.
+	 * @return Igaz, ha van ilyen argumentum.
+	 */
+	private boolean containsJobArguments() {
+		for(String jobArgument: JOB_ARGUMENTS) {
+			if(arguments.containsKey(jobArgument)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Megnézi, hogy van-e olyan argumentum, ami nem egy feladathoz, hanem az egész futáshoz tartozik. Ezek 
+	 * nem szerepelhetnek a feladatfájlban. Csak az alapértékek beállítása előtt van értelme.
+	 * @return Igaz, ha van ilyen argumentum.
+	 */
+	private boolean containsGlobalArguments() {
+		for(String key: arguments.keySet()) {
+			if(!Arrays.asList(JOB_ARGUMENTS).contains(key)) return true;
+		}
+		return false;
+	}
+	
 	/**
 	 * Egy parancssori szöveges argumentumot dolgoz fel és helyes a {@link #arguments} leképezésbe.
 	 * @param arg Az argumentum.
@@ -100,6 +175,30 @@ public class CommandLineArguments {
  			} else {
  				throw new IllegalArgumentException("Több megadott '-recursive', ami nem megengedett!");
  			}
+ 		} else if(arg.equals(DUPLICATES)) { //közel azonos PDF-ek keresése
+ 			if(!arguments.containsKey(DUPLICATES)) {
+ 				arguments.put(DUPLICATES, ""); //itt a konkrét érték nem lényeges
+ 			} else {
+ 				throw new IllegalArgumentException("Több megadott '-duplicates', ami nem megengedett!");
+ 			}
+ 		} else if(arg.equals(QUALITY)) { //szöveg minőségének mérése
+ 			if(!arguments.containsKey(QUALITY)) {
+ 				arguments.put(QUALITY, ""); //itt a konkrét érték nem lényeges
+ 			} else {
+ 				throw new IllegalArgumentException("Több megadott '-quality', ami nem megengedett!");
+ 			}
+ 		} else if(arg.equals(JMX)) { //élő számlálók JMX-en
+ 			if(!arguments.containsKey(JMX)) {
+ 				arguments.put(JMX, ""); //itt a konkrét érték nem lényeges
+ 			} else {
+ 				throw new IllegalArgumentException("Több megadott '-jmx', ami nem megengedett!");
+ 			}
+ 		} else if(arg.equals(SKIP_UNCHANGED)) { //változatlan fájlok kihagyása
+ 			if(!arguments.containsKey(SKIP_UNCHANGED)) {
+ 				arguments.put(SKIP_UNCHANGED, ""); //itt a konkrét érték nem lényeges
+ 			} else {
+ 				throw new IllegalArgumentException("Több megadott '-skipUnchanged', ami nem megengedett!");
+ 			}
  		} else if(arg.equals(MUTE)) { //mute argumentum
  			if(!arguments.containsKey(MUTE)) {
  				arguments.put(MUTE, ""); //itt a konkrét érték nem lényeges
@@ -110,6 +209,20 @@ public class CommandLineArguments {
  			parseLogfile(arg);
  		} else if(arg.startsWith(PATH_TYPE)) { //path típus
  			parsePathType(arg);
+ 		} else if(arg.startsWith(EXECUTION + "=")) { //végrehajtási mód
+ 			parseExecution(arg);
+ 		} else if(arg.startsWith(INDEX + "=")) { //keresőindex mappája
+ 			parseIndex(arg);
+ 		} else if(arg.startsWith(FORMAT + "=")) { //kimeneti formátum
+ 			parseFormat(arg);
+ 		} else if(arg.startsWith(DURABILITY + "=")) { //fsync szabály
+ 			parseDurability(arg);
+ 		} else if(arg.startsWith(GROUP_BY + "=")) { //csoportok felváltva
+ 			parseGroupBy(arg);
+ 		} else if(arg.startsWith(WEIGHTS + "=")) { //csoportok súlyai
+ 			parseWeights(arg);
+ 		} else if(arg.startsWith(JOBS + "=")) { //feladatfájl
+ 			parseJobs(arg);
  		} else { //ismeretlen
  			throw new IllegalArgumentException("Ismeretlen argumentum: " + arg);
  		}
@@ -164,6 +277,22 @@ public class CommandLineArguments {
 			}
 		}
 		
+		if(!arguments.containsKey(EXECUTION)) { //alapból egyesével történik a feldolgozás
+			arguments.put(EXECUTION, EXECUTION_SEQUENTIAL);
+		}
+		if(!arguments.containsKey(FORMAT)) { //alapból szövegfájl készül
+			arguments.put(FORMAT, FORMAT_TXT);
+		}
+		if(!arguments.containsKey(DURABILITY)) { //alapból nincs fsync, mint korábban
+			arguments.put(DURABILITY, DURABILITY_NONE);
+		}
+		if(arguments.containsKey(WEIGHTS) && !arguments.containsKey(GROUP_BY)) {
+			throw new IllegalArgumentException("A '-weights' csak a '-groupBy' argumentummal együtt adható meg!");
+		}
+		if(arguments.get(EXECUTION).equals(EXECUTION_ASYNC_IO) && arguments.get(OVERWRITE).equals(OVERWRITE_SELECT)) {
+			throw new IllegalArgumentException("Az '-execution=async-io' mód nem használható a '-overwrite=select' argumentummal, mert a fájlok párhuzamosan kerülnek feldolgozásra!");
+		}
+		
 		//mute, log és recursive-al itt nem kell törődni, mert azok alapból kikapcsoltak
 	}
 	
@@ -353,6 +482,150 @@ public class CommandLineArguments {
 		}
 	}
 	
+	/**
+	 * Kiértékeli az '-execution' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseExecution(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(EXECUTION)) {
+			throw new IllegalArgumentException("Több megadott '-execution', ami nem megengedett!");
+		}
+		String[] split = arg.split("=");
+		if(split[1].equals(EXECUTION_SEQUENTIAL)) {
+			arguments.put(EXECUTION, EXECUTION_SEQUENTIAL);
+		} else if(split[1].equals(EXECUTION_ASYNC_IO)) {
+			arguments.put(EXECUTION, EXECUTION_ASYNC_IO);
+		} else {
+			String[] valids = { EXECUTION_SEQUENTIAL, EXECUTION_ASYNC_IO };
+			throw new IllegalArgumentException("Érvénytelen '-execution' érték: " + split[1] + "! Csak ezek egyike lehet: " + Arrays.toString(valids));
+		}
+	}
+	
+	/**
+	 * Kiértékeli az '-index' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseIndex(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(INDEX)) {
+			throw new IllegalArgumentException("Több megadott '-index', ami nem megengedett!");
+		}
+		String[] split = arg.split("=");
+		if(split.length < 2 || split[1].isEmpty()) {
+			throw new IllegalArgumentException("Az '-index' argumentumban meg kell adni egy mappát!");
+		}
+		File folder = new File(split[1]);
+		if(folder.exists() && !folder.isDirectory()) {
+			throw new IllegalArgumentException("Az '-index' értékének egy mappára kell mutatnia, de ez egy fájlra mutat: " + folder.getAbsolutePath());
+		}
+		arguments.put(INDEX, split[1]);
+	}
+	
+	/**
+	 * Kiértékeli a '-format' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseFormat(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(FORMAT)) {
+			throw new IllegalArgumentException("Több megadott '-format', ami nem megengedett!");
+		}
+		String[] split = arg.split("=");
+		if(split[1].equals(FORMAT_TXT)) {
+			arguments.put(FORMAT, FORMAT_TXT);
+		} else if(split[1].equals(FORMAT_JSONL)) {
+			arguments.put(FORMAT, FORMAT_JSONL);
+		} else {
+			String[] valids = { FORMAT_TXT, FORMAT_JSONL };
+			throw new IllegalArgumentException("Érvénytelen '-format' érték: " + split[1] + "! Csak ezek egyike lehet: " + Arrays.toString(valids));
+		}
+	}
+	
+	/**
+	 * Kiértékeli a '-durability' argumentumot. A csoportos módnál a fájlok száma és az idő is megadható.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseDurability(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(DURABILITY)) {
+			throw new IllegalArgumentException("Több megadott '-durability', ami nem megengedett!");
+		}
+		String value = arg.substring(DURABILITY.length() + 1);
+		if(value.equals(DURABILITY_NONE) || value.equals(DURABILITY_FILE) || value.equals(DURABILITY_GROUP)) {
+			arguments.put(DURABILITY, value);
+		} else if(value.startsWith(DURABILITY_GROUP + ":")) {
+			String[] split = value.split(":");
+			if(split.length != 3) {
+				throw new IllegalArgumentException("Érvénytelen '-durability' érték: " + value + "! A csoportos mód formája: group:<fájlok>:<ezredmásodperc>");
+			}
+			try {
+				if(Integer.parseInt(split[1]) <= 0 || Long.parseLong(split[2]) <= 0) {
+					throw new IllegalArgumentException("A '-durability' csoportjában a fájlok száma és az idő is pozitív kell legyen!");
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Érvénytelen '-durability' érték: " + value + "! A fájlok száma és az idő egész szám kell legyen.");
+			}
+			arguments.put(DURABILITY, value);
+		} else {
+			String[] valids = { DURABILITY_NONE, DURABILITY_FILE, DURABILITY_GROUP, DURABILITY_GROUP + ":<fájlok>:<ezredmásodperc>" };
+			throw new IllegalArgumentException("Érvénytelen '-durability' érték: " + value + "! Csak ezek egyike lehet: " + Arrays.toString(valids));
+		}
+	}
+	
+	/**
+	 * Kiértékeli a '-groupBy' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseGroupBy(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(GROUP_BY)) {
+			throw new IllegalArgumentException("Több megadott '-groupBy', ami nem megengedett!");
+		}
+		String value = arg.substring(GROUP_BY.length() + 1);
+		if(value.isEmpty()) {
+			throw new IllegalArgumentException("A '-groupBy' értéke nem lehet üres!");
+		}
+		if(!value.equals(GROUP_BY_FOLDER)) {
+			try {
+				Pattern.compile(value);
+			} catch (Exception e) {
+				throw new IllegalArgumentException("A '-groupBy' értéke nem egy értelmes Java regex! Ok:", e);
+			}
+		}
+		arguments.put(GROUP_BY, value);
+	}
+	
+	/**
+	 * Kiértékeli a '-weights' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseWeights(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(WEIGHTS)) {
+			throw new IllegalArgumentException("Több megadott '-weights', ami nem megengedett!");
+		}
+		String value = arg.substring(WEIGHTS.length() + 1);
+		arguments.put(WEIGHTS, value);
+		getWeights(); //ellenőrzés
+	}
+	
+	/**
+	 * Kiértékeli a '-jobs' argumentumot.
+	 * @param arg Az argumentum.
+	 * @throws IllegalArgumentException Ha hibás az argumentum.
+	 */
+	private void parseJobs(String arg) throws IllegalArgumentException {
+		if(arguments.containsKey(JOBS)) {
+			throw new IllegalArgumentException("Több megadott '-jobs', ami nem megengedett!");
+		}
+		String[] split = arg.split("=");
+		if(split.length < 2 || !new File(split[1]).isFile()) {
+			throw new IllegalArgumentException("A '-jobs' argumentumban egy létező feladatfájlt kell megadni!");
+		}
+		arguments.put(JOBS, split[1]);
+	}
+	
 	public String getMode() {
 		return arguments.get(MODE);
 	}
@@ -375,6 +648,22 @@ public class CommandLineArguments {
 		return arguments.containsKey(RECURSIVE);
 	}
 	
+	public boolean isDuplicateDetection() {
+		return arguments.containsKey(DUPLICATES);
+	}
+	
+	public boolean isQualityAnalysis() {
+		return arguments.containsKey(QUALITY);
+	}
+	
+	public boolean isJmx() {
+		return arguments.containsKey(JMX);
+	}
+	
+	public boolean isSkipUnchanged() {
+		return arguments.containsKey(SKIP_UNCHANGED);
+	}
+	
 	public boolean isMuted() {
 		return arguments.containsKey(MUTE);
 	}
@@ -401,11 +690,82 @@ public class CommandLineArguments {
 		return arguments.get(FOLDER);
 	}
 	
-	@Override
-	public String toString() {
-		StringBuilder b = new StringBuilder();
-		b.append("-----------------------------------------------------------------------\n");
-		b.append("A kapott argumentumok:\n");
+	public String getExecution() {
+		return arguments.get(EXECUTION);
+	}
+	
+	public String getFormat() {
+		return arguments.get(FORMAT);
+	}
+	
+	//null lesz, ha nincs csoportosítás
+	public String getGroupBy() {
+		return arguments.get(GROUP_BY);
+	}
+	
+	/**
+	 * @return A '-weights' súlyai csoportonként, üres, ha nincs megadva.
+	 * @throws IllegalArgumentException Ha hibás a '-weights' értéke.
+	 */
+	public Map<String, Integer> getWeights() throws IllegalArgumentException {
+		Map<String, Integer> weights = new HashMap<>();
+		if(!arguments.containsKey(WEIGHTS)) return weights;
+		for(String weight: arguments.get(WEIGHTS).split(",")) {
+			int separator = weight.lastIndexOf(':');
+			if(separator <= 0) {
+				throw new IllegalArgumentException("Érvénytelen '-weights' elem: " + weight + "! A formája: <csoport>:<súly>");
+			}
+			try {
+				int value = Integer.parseInt(weight.substring(separator + 1));
+				if(value <= 0) {
+					throw new IllegalArgumentException("A '-weights' súlyai pozitívak kell legyenek: " + weight);
+				}
+				weights.put(weight.substring(0, separator), value);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Érvénytelen '-weights' elem: " + weight + "! A súly egész szám kell legyen.");
+			}
+		}
+		return weights;
+	}
+	
+	/**
+	 * @return A fsync szabály: {@link #DURABILITY_NONE}, {@link #DURABILITY_FILE} vagy {@link #DURABILITY_GROUP}.
+	 */
+	public String getDurability() {
+		return arguments.get(DURABILITY).split(":")[0];
+	}
+	
+	/**
+	 * @return Csoportos fsync esetén hány fájl legyen egy csoportban.
+	 */
+	public int getGroupFiles() {
+		String[] split = arguments.get(DURABILITY).split(":");
+		return split.length == 3 ? Integer.parseInt(split[1]) : DEFAULT_GROUP_FILES;
+	}
+	
+	/**
+	 * @return Csoportos fsync esetén legfeljebb meddig várhat egy fájl, ezredmásodpercben.
+	 */
+	public long getGroupMillis() {
+		String[] split = arguments.get(DURABILITY).split(":");
+		return split.length == 3 ? Long.parseLong(split[2]) : DEFAULT_GROUP_MILLIS;
+	}
+	
+	//null lesz, ha nincs feladatfájl
+	public String getJobFile() {
+		return arguments.get(JOBS);
+	}
+	
+	//null lesz, ha nincs index
+	public String getIndexFolder() {
+		return arguments.get(INDEX);
+	}
+	
+	/**
+	 * Kiírja a feladathoz tartozó argumentumokat (mód, útvonalak, rekurzív keresés, felülírás).
+	 * @param b Ide kerül a szöveg.
+	 */
+	private void appendJobArguments(StringBuilder b) {
 		//mód
 		b.append("PDF keresési mód (-mode): ");
 		String mode = getMode();
@@ -452,6 +812,18 @@ public class CommandLineArguments {
 		} else if(ow.equals(OVERWRITE_SELECT)) {
 			b.append("Felülírási szabály (-overwrite): Külön-külön keröl eldöntésre.\n");
 		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("-----------------------------------------------------------------------\n");
+		b.append("A kapott argumentumok:\n");
+		if(getJobFile() != null) {
+			b.append("Feladatfájl (-jobs): " + getJobFile() + ", a feladatok argumentumai ebben vannak.\n");
+		} else {
+			appendJobArguments(b);
+		}
 		//mute?
 		if(isMuted()) {
 			b.append("A konzolra kiírás némítva van (-mute).\n");
@@ -469,6 +841,57 @@ public class CommandLineArguments {
 		} else {
 			b.append("A log fájl ki van kapcsolva.\n");
 		}
+		//végrehajtási mód
+		if(getExecution().equals(EXECUTION_ASYNC_IO)) {
+			b.append("Végrehajtási mód (-execution): aszinkron I/O, a fájlműveletek virtuális szálakon futnak.\n");
+		} else {
+			b.append("Végrehajtási mód (-execution): a PDF-ek egyesével kerülnek feldolgozásra.\n");
+		}
+		//kimeneti formátum
+		if(getFormat().equals(FORMAT_JSONL)) {
+			b.append("Kimeneti formátum (-format): JSON Lines, oldalanként egy rekord (.jsonl fájlok).\n");
+		} else {
+			b.append("Kimeneti formátum (-format): szövegfájl (.txt fájlok).\n");
+		}
+		//csoportok
+		if(getGroupBy() != null) {
+			if(getGroupBy().equals(GROUP_BY_FOLDER)) {
+				b.append("A PDF-ek a legfelső almappájuk szerint csoportosítva, felváltva kerülnek sorra (-groupBy).\n");
+			} else {
+				b.append("A PDF-ek a " + getGroupBy() + " regex szerint csoportosítva, felváltva kerülnek sorra (-groupBy).\n");
+			}
+			if(!getWeights().isEmpty()) {
+				b.append("A csoportok súlyai (-weights): " + getWeights() + "\n");
+			}
+		}
+		//fsync
+		if(getDurability().equals(DURABILITY_FILE)) {
+			b.append("Tartósság (-durability): minden fájl után fsync.\n");
+		} else if(getDurability().equals(DURABILITY_GROUP)) {
+			b.append("Tartósság (-durability): csoportos fsync, " + getGroupFiles() + " fájlonként vagy " + getGroupMillis() + " ezredmásodpercenként.\n");
+		} else {
+			b.append("Tartósság (-durability): nincs fsync.\n");
+		}
+		//változatlan fájlok
+		if(isSkipUnchanged()) {
+			b.append("A változatlan tartalmú fájlok nem íródnak újra (-skipUnchanged).\n");
+		}
+		//keresőindex
+		if(getIndexFolder() != null) {
+			b.append("Keresőindex készül (-index) ebbe a mappába: " + getIndexFolder() + "\n");
+		}
+		//közel azonos PDF-ek
+		if(isDuplicateDetection()) {
+			b.append("A közel azonos PDF-ek keresése engedélyezve van (-duplicates).\n");
+		}
+		//szöveg minősége
+		if(isQualityAnalysis()) {
+			b.append("A kinyert szövegek minőségének mérése engedélyezve van (-quality).\n");
+		}
+		//JMX
+		if(isJmx()) {
+			b.append("Az élő számlálók JMX-en elérhetők (-jmx).\n");
+		}
 		b.append("-----------------------------------------------------------------------");
 		return b.toString();
 	}
@@ -511,4 +934,51 @@ public class CommandLineArguments {
 	
 	private static final String LOG_AUTO = "auto";
 	
+	private static final String EXECUTION = "-execution";
+	
+	public static final String EXECUTION_SEQUENTIAL = "sequential";
+	
+	public static final String EXECUTION_ASYNC_IO = "async-io";
+	
+	private static final String INDEX = "-index";
+	
+	private static final String JOBS = "-jobs";
+	
+	private static final String FORMAT = "-format";
+	
+	public static final String FORMAT_TXT = "txt";
+	
+	public static final String FORMAT_JSONL = "jsonl";
+	
+	private static final String DURABILITY = "-durability";
+	
+	private static final String GROUP_BY = "-groupBy";
+	
+	public static final String GROUP_BY_FOLDER = "folder";
+	
+	private static final String WEIGHTS = "-weights";
+	
+	public static final String DURABILITY_NONE = "none";
+	
+	public static final String DURABILITY_FILE = "file";
+	
+	public static final String DURABILITY_GROUP = "group";
+	
+	public static final int DEFAULT_GROUP_FILES = 64;
+	
+	public static final long DEFAULT_GROUP_MILLIS = 1000;
+	
+	/**
+	 * Ezek az argumentumok tartoznak egy feladathoz, a többi az egész futásra vonatkozik.
+	 */
+	private static final String[] JOB_ARGUMENTS = { MODE, FOLDER, PATH, PATH_TYPE, REGEX, RECURSIVE, OVERWRITE };
+	
+	private static final String DUPLICATES = "-duplicates";
+	
+	private static final String QUALITY = "-quality";
+	
+	private static final String JMX = "-jmx";
+	
+	private static final String SKIP_UNCHANGED = "-skipUnchanged";
+	
 }
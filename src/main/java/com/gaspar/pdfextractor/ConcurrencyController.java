@@ -0,0 +1,422 @@
+package com.gaspar.pdfextractor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Limits how many PDF files are processed at the same time in the '-execution=async-io' mode (each of them is held in memory
+ * and has an open PdfReader), and adjusts this limit while the extraction runs. Small PDF files are processed fastest with
+ * many of them in flight, while a few huge ones can fill the heap and make the garbage collector thrash.
+ * <p>
+ * The limit is checked every {@link #SAMPLE_INTERVAL_MS} milliseconds, the decisions are made by the {@link Policy}:
+ * <ul>
+ * <li>If the heap occupancy after a garbage collection is above {@link #HIGH_HEAP_OCCUPANCY}, the limit is halved.
+ * The same happens immediately when the {@link MemoryMXBean} sends a notification that a heap pool is above this
+ * threshold after a collection, so the extraction backs off before running out of memory. The occupancy after
+ * collection only changes when the old generation is collected, so only a new value is acted on.</li>
+ * <li>If the previous increase made the throughput (pages per second) drop, it is undone.</li>
+ * <li>If the limit was reached, and the heap occupancy is below {@link #LOW_HEAP_OCCUPANCY}, the limit is increased.</li>
+ * </ul>
+ * After every decrease, there are no changes for {@link #COOLDOWN_SAMPLES} checks. The changes are logged.
+ * @author Gáspár Tamás
+ */
+public class ConcurrencyController {
+
+	/**
+	 * Time between two checks of the limit.
+	 */
+	static final long SAMPLE_INTERVAL_MS = 500;
+
+	/**
+	 * Above this heap occupancy the limit is decreased.
+	 */
+	static final double HIGH_HEAP_OCCUPANCY = 0.8;
+
+	/**
+	 * The limit is only increased below this heap occupancy.
+	 */
+	static final double LOW_HEAP_OCCUPANCY = 0.6;
+
+	/**
+	 * An increase is undone if the throughput drops by more than this ratio after it.
+	 */
+	static final double THROUGHPUT_DROP = 0.1;
+
+	/**
+	 * Weight of the newest measurement in the average throughput. Pages are counted when a whole PDF is done, so
+	 * the measurements are bursty with large PDF files.
+	 */
+	static final double THROUGHPUT_SMOOTHING = 0.5;
+
+	/**
+	 * Number of checks after a decrease, when the limit is not changed.
+	 */
+	static final int COOLDOWN_SAMPLES = 4;
+
+	/**
+	 * A heap occupancy reading is used for this many checks. If the old generation is not collected for this long, the
+	 * occupancy is unknown, and it does not prevent increasing the limit (the memory notification still protects the heap).
+	 */
+	static final int HEAP_READING_SAMPLES = 20;
+
+	/**
+	 * Logger object.
+	 */
+	private final Logger logger;
+
+	/**
+	 * Decides the limit, must be used while holding the lock of this object.
+	 */
+	private final Policy policy;
+
+	/**
+	 * Number of PDF files in flight.
+	 */
+	private int inUse;
+
+	private long previousSampleNanos;
+
+	/**
+	 * Pages extracted since the previous check.
+	 */
+	private final AtomicLong pages = new AtomicLong();
+
+	/**
+	 * Heap pools where the occupancy after garbage collection is known.
+	 */
+	private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+	/**
+	 * The used memory of the {@link #heapPools} after their last garbage collection, at the previous check. If it is
+	 * the same now, there was no collection, and the reading is not new.
+	 */
+	private final long[] previousCollectionUsed;
+
+	private final NotificationListener memoryListener = this::memoryNotification;
+
+	private final ScheduledExecutorService sampler;
+
+	/**
+	 * Creates the controller and starts the checks.
+	 * @param minLimit The limit never goes below this.
+	 * @param initialLimit Limit at the start.
+	 * @param maxLimit The limit never goes above this.
+	 * @param logger Logger object.
+	 */
+	public ConcurrencyController(int minLimit, int initialLimit, int maxLimit, Logger logger) {
+		this.logger = logger;
+		this.policy = new Policy(minLimit, initialLimit, maxLimit);
+		for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) continue;
+			long max = pool.getUsage().getMax();
+			if(max <= 0) continue; //not limited, for example young generation
+			pool.setCollectionUsageThreshold((long)(max * HIGH_HEAP_OCCUPANCY));
+			heapPools.add(pool);
+		}
+		previousCollectionUsed = new long[heapPools.size()];
+		((NotificationEmitter)ManagementFactory.getMemoryMXBean()).addNotificationListener(memoryListener, null, null);
+		previousSampleNanos = System.nanoTime();
+		sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pdf-concurrency");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		logger.log("Párhuzamosan feldolgozott PDF-ek: kezdetben " + initialLimit + ", legfeljebb " + maxLimit + ", a teljesítmény és a memória alapján változik.");
+	}
+
+	/**
+	 * Waits until one more PDF can be processed.
+	 */
+	public synchronized void acquire() {
+		while(inUse >= policy.getLimit()) {
+			policy.limitReached();
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break; //don't block an interrupted thread, the limit is only a soft one
+			}
+		}
+		inUse++;
+	}
+
+	/**
+	 * Called when a PDF is done.
+	 */
+	public synchronized void release() {
+		inUse--;
+		notifyAll();
+	}
+
+	/**
+	 * Counts the extracted pages for the throughput.
+	 * @param pageCount Number of pages extracted.
+	 */
+	public void pagesExtracted(int pageCount) {
+		pages.addAndGet(pageCount);
+	}
+
+	/**
+	 * Checks the throughput and the memory, and adjusts the limit.
+	 */
+	private void sample() {
+		long now = System.nanoTime();
+		double occupancy = heapOccupancy();
+		boolean fresh = isHeapReadingFresh();
+		long count = pages.getAndSet(0);
+		synchronized (this) {
+			String change = policy.sample(now - previousSampleNanos, count, occupancy, fresh);
+			previousSampleNanos = now;
+			if(change != null) {
+				logger.log(change);
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Called by the {@link MemoryMXBean} when a heap pool is still above the threshold after garbage collection.
+	 */
+	private void memoryNotification(Notification notification, Object handback) {
+		if(!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) return;
+		synchronized (this) {
+			String change = policy.memoryExhausted(heapPoolName(notification));
+			if(change != null) logger.log(change);
+		}
+	}
+
+	private static String heapPoolName(Notification notification) {
+		return MemoryNotificationInfo.from((CompositeData)notification.getUserData()).getPoolName();
+	}
+
+	/**
+	 * Checks if a heap pool was collected since the previous check, by comparing the memory used after the collection.
+	 * If the occupancy after collection is not known, the whole heap is measured, which is always new.
+	 */
+	private boolean isHeapReadingFresh() {
+		boolean fresh = false, known = false;
+		for(int i = 0; i < heapPools.size(); i++) {
+			MemoryUsage usage = heapPools.get(i).getCollectionUsage();
+			if(usage == null || usage.getMax() <= 0) continue;
+			known = true;
+			if(usage.getUsed() != previousCollectionUsed[i]) {
+				previousCollectionUsed[i] = usage.getUsed();
+				fresh = true;
+			}
+		}
+		return fresh || !known;
+	}
+
+	/**
+	 * The highest occupancy of the heap pools after the last garbage collection, which is the memory used by live objects.
+	 * If this is not known, the occupancy of the whole heap.
+	 */
+	private double heapOccupancy() {
+		double occupancy = -1;
+		for(MemoryPoolMXBean pool: heapPools) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if(usage == null || usage.getMax() <= 0) continue;
+			occupancy = Math.max(occupancy, (double)usage.getUsed() / usage.getMax());
+		}
+		if(occupancy < 0) {
+			MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+			occupancy = heap.getMax() > 0 ? (double)heap.getUsed() / heap.getMax() : 0;
+		}
+		return occupancy;
+	}
+
+
+	/**
+	 * Stops the checks and the memory notifications.
+	 */
+	public void shutdown() {
+		sampler.shutdownNow();
+		try {
+			((NotificationEmitter)ManagementFactory.getMemoryMXBean()).removeNotificationListener(memoryListener);
+		} catch (ListenerNotFoundException e) {
+			//already removed
+		}
+		for(MemoryPoolMXBean pool: heapPools) {
+			pool.setCollectionUsageThreshold(0); //disables the threshold
+		}
+	}
+
+	/**
+	 * The decisions of the controller, without the measurements, so that they can be tested. Not thread safe.
+	 */
+	static final class Policy {
+
+		private final int minLimit, maxLimit;
+
+		/**
+		 * The limit is increased by this much.
+		 */
+		private final int step;
+
+		/**
+		 * Current limit of the PDF files in flight.
+		 */
+		private int limit;
+
+		/**
+		 * If the limit was reached since the last check.
+		 */
+		private boolean saturated;
+
+		/**
+		 * If the last change was an increase, which may be undone.
+		 */
+		private boolean increased;
+
+		/**
+		 * Remaining checks until the limit may be changed again.
+		 */
+		private int cooldown;
+
+		/**
+		 * The last new heap occupancy reading.
+		 */
+		private double occupancy;
+
+		/**
+		 * Remaining checks while {@link #occupancy} is used.
+		 */
+		private int occupancyValid;
+
+		/**
+		 * If the last new heap occupancy reading was too high, and the limit was not yet decreased because of it.
+		 */
+		private boolean heapPressure;
+
+		/**
+		 * Average throughput until the previous measurement.
+		 */
+		private double previousPagesPerSecond;
+
+		/**
+		 * Time since the previous throughput measurement.
+		 */
+		private long unmeasuredNanos;
+
+		/**
+		 * Creates a policy.
+		 * @param minLimit The limit never goes below this.
+		 * @param initialLimit Limit at the start.
+		 * @param maxLimit The limit never goes above this.
+		 */
+		Policy(int minLimit, int initialLimit, int maxLimit) {
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.limit = initialLimit;
+			this.step = Math.max(1, initialLimit / 4);
+		}
+
+		int getLimit() {
+			return limit;
+		}
+
+		/**
+		 * Called when a PDF has to wait because of the limit.
+		 */
+		void limitReached() {
+			saturated = true;
+		}
+
+		/**
+		 * One check of the limit.
+		 * @param elapsedNanos Time since the previous check.
+		 * @param pageCount Pages extracted since the previous check.
+		 * @param heapOccupancy The heap occupancy after garbage collection.
+		 * @param fresh If the heap occupancy is a new reading. An old one is not acted on again.
+		 * @return Log message if the limit was changed, or null.
+		 */
+		String sample(long elapsedNanos, long pageCount, double heapOccupancy, boolean fresh) {
+			if(cooldown > 0) cooldown--;
+			if(fresh) {
+				occupancy = heapOccupancy;
+				occupancyValid = HEAP_READING_SAMPLES;
+				heapPressure = heapOccupancy > HIGH_HEAP_OCCUPANCY;
+			} else if(occupancyValid > 0) {
+				occupancyValid--;
+			}
+			if(heapPressure && cooldown == 0) {
+				heapPressure = false;
+				saturated = false;
+				return decrease(Math.max(minLimit, limit / 2), "a heap " + percent(occupancy) + " foglalt", previousPagesPerSecond);
+			}
+			unmeasuredNanos += elapsedNanos;
+			if(pageCount == 0) return null; //no PDF was finished, the throughput is measured over a longer time
+			double measured = pageCount * 1e9 / Math.max(1, unmeasuredNanos);
+			unmeasuredNanos = 0;
+			double pagesPerSecond = previousPagesPerSecond == 0 ? measured
+					: THROUGHPUT_SMOOTHING * measured + (1 - THROUGHPUT_SMOOTHING) * previousPagesPerSecond;
+			String change = null;
+			if(increased && pagesPerSecond < previousPagesPerSecond * (1 - THROUGHPUT_DROP)) {
+				change = decrease(Math.max(minLimit, limit - step), "a teljesítmény csökkent ("
+						+ format(previousPagesPerSecond) + " -> " + format(pagesPerSecond) + " oldal/s)", pagesPerSecond);
+			} else if(saturated && cooldown == 0 && limit < maxLimit && !heapPressure
+					&& (occupancyValid == 0 || occupancy < LOW_HEAP_OCCUPANCY)) {
+				int newLimit = Math.min(maxLimit, limit + step);
+				change = "Párhuzamosság: " + limit + " -> " + newLimit + " (" + format(pagesPerSecond) + " oldal/s, heap: "
+						+ (occupancyValid == 0 ? "nem ismert" : percent(occupancy)) + ")";
+				limit = newLimit;
+				increased = true;
+			} else {
+				increased = false; //the throughput is measured with the new limit, keep it
+			}
+			saturated = false;
+			previousPagesPerSecond = pagesPerSecond;
+			return change;
+		}
+
+		/**
+		 * Called when a heap pool is above the threshold after garbage collection.
+		 * @param poolName Name of the pool.
+		 * @return Log message if the limit was changed, or null.
+		 */
+		String memoryExhausted(String poolName) {
+			if(cooldown > 0) return null; //the limit was just decreased, probably because of the same collection
+			heapPressure = false;
+			return decrease(Math.max(minLimit, limit / 2), "a memória majdnem elfogyott (" + poolName + ")", previousPagesPerSecond);
+		}
+
+		/**
+		 * Decreases the limit.
+		 * @return Log message if the limit was changed, or null.
+		 */
+		private String decrease(int newLimit, String reason, double pagesPerSecond) {
+			increased = false;
+			cooldown = COOLDOWN_SAMPLES;
+			if(newLimit == limit) return null;
+			String change = "Párhuzamosság: " + limit + " -> " + newLimit + ", mert " + reason + " (" + format(pagesPerSecond) + " oldal/s)";
+			limit = newLimit;
+			return change;
+		}
+
+		private static String percent(double ratio) {
+			return Math.round(ratio * 100) + "%";
+		}
+
+		private static String format(double pagesPerSecond) {
+			return String.format(Locale.ROOT, "%.1f", pagesPerSecond);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.gaspar.pdfextractor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SHA-256 hashes of the text files, used by the '-skipUnchanged' argument to find out that a text file would be rewritten
+ * with the same content. The hash of a written text file is stored in its 'user.{@value #ATTRIBUTE}' extended attribute, or if
+ * the file system does not support extended attributes, in a sidecar file next to it (with the {@value #SIDECAR_EXTENSION}
+ * extension). Together with the hash, the size and the modification time of the text file are stored, so if the file is
+ * changed by someone else, the stored hash is not used, and the file is hashed again.
+ * <p>
+ * Whether extended attributes work is decided once for every folder (with the first text file stored there), so a file
+ * system without them does not cost a failing system call for every file. A failure which is not caused by the file system
+ * (for example a permission problem with one file) only puts the hash of that file into a sidecar.
+ * @author Gáspár Tamás
+ */
+public final class ContentHashes {
+
+	static final String ATTRIBUTE = "pdfextractor.sha256";
+
+	static final String SIDECAR_EXTENSION = ".sha256";
+
+	/**
+	 * Size of the buffers used while hashing.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Folders mapped to whether their text files can have extended attributes. Folders which were not tried yet are missing.
+	 */
+	private static final Map<Path, Boolean> attributeSupport = new ConcurrentHashMap<>();
+
+	private ContentHashes() {}
+
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is always supported", e);
+		}
+	}
+
+	/**
+	 * Hashes the text as it would be written into the file, without keeping the encoded bytes in memory.
+	 * @param text The text.
+	 * @param charset Encoding of the text, characters which can't be encoded are replaced.
+	 * @return The hash as a hex string.
+	 */
+	static String hash(String text, Charset charset) {
+		CharsetEncoder encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		MessageDigest digest = newDigest();
+		CharBuffer chars = CharBuffer.wrap(text);
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		boolean encoded = false, flushed = false;
+		while(!flushed) {
+			if(!encoded) encoded = encoder.encode(chars, buffer, true).isUnderflow();
+			if(encoded) flushed = encoder.flush(buffer).isUnderflow();
+			buffer.flip();
+			digest.update(buffer);
+			buffer.clear();
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Hashes the content of a file.
+	 * @param file The file.
+	 * @return The hash as a hex string.
+	 * @throws IOException If the file can't be read.
+	 */
+	static String hashFile(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while(channel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	static String toHex(byte[] bytes) {
+		StringBuilder b = new StringBuilder(bytes.length * 2);
+		for(byte value: bytes) {
+			b.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Finds the hash of the content of an existing file. The stored hash is used if the file was not changed since it was
+	 * stored, otherwise the file is read and hashed, and the new hash is stored.
+	 * @param file The file, it must exist.
+	 * @return The hash as a hex string.
+	 * @throws IOException If the file can't be read.
+	 */
+	static String currentHash(Path file) throws IOException {
+		String stored = readAttribute(file);
+		boolean fromSidecar = false;
+		if(stored == null) {
+			stored = readSidecar(file);
+			fromSidecar = stored != null;
+		}
+		String expectedSuffix = " " + describe(file);
+		if(stored != null && stored.endsWith(expectedSuffix)) {
+			return stored.substring(0, stored.length() - expectedSuffix.length());
+		}
+		String hash = hashFile(file);
+		if(store(file, hash) && fromSidecar) {
+			Files.deleteIfExists(sidecar(file)); //the attribute is used from now on, the old sidecar would be stale
+		}
+		return hash;
+	}
+
+	/**
+	 * Stores the hash of a file, see {@link ContentHashes}. This does not change the modification time of the file.
+	 * Errors are ignored, in that case the file will be hashed again next time.
+	 * @param file The file, with its final content.
+	 * @param hash The hash of the content.
+	 * @return True if it was stored in the extended attribute, false if in the sidecar (or it could not be stored).
+	 */
+	static boolean store(Path file, String hash) {
+		try {
+			byte[] value = (hash + " " + describe(file)).getBytes(StandardCharsets.US_ASCII);
+			Path folder = folderOf(file);
+			if(attributeSupport.getOrDefault(folder, true)) {
+				UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+				try {
+					if(view == null) throw new UnsupportedOperationException();
+					view.write(ATTRIBUTE, ByteBuffer.wrap(value));
+					attributeSupport.putIfAbsent(folder, true);
+					return true;
+				} catch (UnsupportedOperationException e) {
+					//this file system does not support it, use the sidecar in this folder
+					attributeSupport.put(folder, false);
+				} catch (IOException e) {
+					//only this file gets a sidecar, unless the file system turns out to be the reason
+					if(!supportsAttributes(file)) attributeSupport.put(folder, false);
+				}
+			}
+			Files.write(sidecar(file), value);
+		} catch (IOException e) {
+			//the hash is only an optimization
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if the file system of a file supports extended attributes, after writing one failed. The failure may have
+	 * other reasons too (for example permissions, or a value too large for this one file), which should not switch the whole
+	 * folder to sidecar files.
+	 */
+	private static boolean supportsAttributes(Path file) {
+		try {
+			return Files.getFileStore(file).supportsFileAttributeView(UserDefinedFileAttributeView.class);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the stored hash, size and modification time of a file from the extended attribute.
+	 * @return The stored value, or null if there is none, or the folder does not support extended attributes.
+	 */
+	private static String readAttribute(Path file) {
+		if(!attributeSupport.getOrDefault(folderOf(file), true)) return null;
+		UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+		if(view == null) return null;
+		try {
+			ByteBuffer value = ByteBuffer.allocate(view.size(ATTRIBUTE));
+			view.read(ATTRIBUTE, value);
+			return new String(value.array(), 0, value.position(), StandardCharsets.US_ASCII);
+		} catch (IOException | UnsupportedOperationException e) {
+			return null; //no attribute
+		}
+	}
+
+	/**
+	 * Reads the stored hash, size and modification time of a file from the sidecar.
+	 * @return The stored value, or null if there is no sidecar.
+	 */
+	private static String readSidecar(Path file) {
+		try {
+			return new String(Files.readAllBytes(sidecar(file)), StandardCharsets.US_ASCII);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static Path folderOf(Path file) {
+		return file.toAbsolutePath().getParent();
+	}
+
+	/**
+	 * Size and modification time of a file, used to check that the stored hash belongs to the current content.
+	 */
+	private static String describe(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return attributes.size() + " " + attributes.lastModifiedTime().toMillis();
+	}
+
+	private static Path sidecar(Path file) {
+		return file.resolveSibling(file.getFileName() + SIDECAR_EXTENSION);
+	}
+}
@@ -0,0 +1,30 @@
+package com.gaspar.pdfextractor;
+
+/**
+ * Receives the text of one PDF, see {@link ExtractionListener}. The calls are made in the order of the 
+ * pages, and the tokens of a page come after the page itself.
+ * @author Gáspár Tamás
+ */
+public interface DocumentListener {
+
+	/**
+	 * Called with the whole text of a page.
+	 * @param pageNumber Number of the page, starting from 1.
+	 * @param text Text of the page.
+	 */
+	default void pageExtracted(int pageNumber, String text) {}
+
+	/**
+	 * Called with every word of a page. These are the same words that are counted by the extractor.
+	 * @param pageNumber Number of the page, starting from 1.
+	 * @param token The word.
+	 */
+	default void token(int pageNumber, String token) {}
+
+	/**
+	 * Called when all pages were extracted successfully and the text file was written (or it already had the same
+	 * text). In group durability mode this is only called when the group of the text file is committed, possibly from
+	 * another thread. If the extraction or the writing fails, this is not called.
+	 */
+	default void documentFinished() {}
+}
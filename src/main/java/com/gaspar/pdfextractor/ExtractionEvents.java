@@ -0,0 +1,154 @@
+package com.gaspar.pdfextractor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the text extraction. The events are only created if the Flight Recorder was started (see
+ * {@link #isRecording()}), otherwise the event classes are not even loaded, which matters for short runs. Record them with:
+ * <pre>{@code
+ * java -XX:StartFlightRecording=filename=extraction.jfr -jar PdfTextExtractor.jar ...
+ * jfr print --categories PdfTextExtractor extraction.jfr
+ * }</pre>
+ * @author Gáspár Tamás
+ */
+public final class ExtractionEvents {
+
+	static final String CATEGORY = "PdfTextExtractor";
+
+	/**
+	 * Outcome of a {@link FileExtraction}: the text file was written.
+	 */
+	static final String OUTCOME_WRITTEN = "written";
+
+	/**
+	 * Outcome of a {@link FileExtraction}: the PDF was skipped, see {@link FileSkipped}.
+	 */
+	static final String OUTCOME_SKIPPED = "skipped";
+
+	/**
+	 * Outcome of a {@link FileExtraction}: the extraction failed.
+	 */
+	static final String OUTCOME_FAILED = "failed";
+
+	/**
+	 * Skip reason: the PDF is encrypted.
+	 */
+	static final String SKIP_ENCRYPTED = "encrypted";
+
+	/**
+	 * Skip reason: the text file exists and overwriting is disabled.
+	 */
+	static final String SKIP_EXISTS = "exists";
+
+	/**
+	 * Skip reason: the text file exists and the user did not allow overwriting it.
+	 */
+	static final String SKIP_DECLINED = "declined by user";
+
+	/**
+	 * Skip reason: the text file already has the same text, and '-skipUnchanged' is enabled.
+	 */
+	static final String SKIP_UNCHANGED = "unchanged";
+
+	/**
+	 * If the jdk.jfr module is in the runtime. A trimmed jlink image may leave it out, then no events are created.
+	 */
+	private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	private ExtractionEvents() {}
+
+	/**
+	 * Checks if the events should be created. The Flight Recorder is initialized when the first recording starts (with
+	 * -XX:StartFlightRecording, or later with jcmd), so until then this only reads a flag.
+	 * @return True if the Flight Recorder is running.
+	 */
+	static boolean isRecording() {
+		return AVAILABLE && FlightRecorder.isInitialized();
+	}
+
+	/**
+	 * Checks if {@link PageExtracted} events are recorded. There is one for every page, so they are not even created
+	 * if a recording runs without them.
+	 */
+	static boolean isPageEventEnabled() {
+		return isRecording() && EventType.getEventType(PageExtracted.class).isEnabled();
+	}
+
+	/**
+	 * The whole processing of a PDF, from the start until the text file is written (or the PDF is skipped or failed).
+	 */
+	@Name("com.gaspar.pdfextractor.FileExtraction")
+	@Label("PDF File Extraction")
+	@Category(CATEGORY)
+	@Description("Processing of one PDF file")
+	static final class FileExtraction extends Event {
+
+		@Label("Path")
+		String path;
+
+		@Label("Pages")
+		int pages;
+
+		@Label("Words")
+		long words;
+
+		@Label("Outcome")
+		String outcome;
+	}
+
+	/**
+	 * Extraction of the text of one page.
+	 */
+	@Name("com.gaspar.pdfextractor.PageExtracted")
+	@Label("Page Extracted")
+	@Category(CATEGORY)
+	static final class PageExtracted extends Event {
+
+		@Label("Path")
+		String path;
+
+		@Label("Page")
+		int page;
+
+		@Label("Characters")
+		int characters;
+	}
+
+	/**
+	 * Writing of a text file.
+	 */
+	@Name("com.gaspar.pdfextractor.BytesWritten")
+	@Label("Text File Written")
+	@Category(CATEGORY)
+	static final class BytesWritten extends Event {
+
+		@Label("Path")
+		String path;
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+	}
+
+	/**
+	 * A PDF was not extracted.
+	 */
+	@Name("com.gaspar.pdfextractor.FileSkipped")
+	@Label("PDF File Skipped")
+	@Category(CATEGORY)
+	static final class FileSkipped extends Event {
+
+		@Label("Path")
+		String path;
+
+		@Label("Reason")
+		String reason;
+	}
+}
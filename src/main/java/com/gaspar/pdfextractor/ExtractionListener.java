@@ -0,0 +1,20 @@
+package com.gaspar.pdfextractor;
+
+/**
+ * Receives the results of the text extraction while the {@link TextExtractor} scans the text, so that 
+ * further processing does not need to read the text files again. Register it with 
+ * {@link TextExtractor#addListener(ExtractionListener)}.
+ * <p>
+ * Extractors may run in parallel, so this method can be called from multiple threads at the same time.
+ * @author Gáspár Tamás
+ */
+public interface ExtractionListener {
+
+	/**
+	 * Called when the extraction of the pages of a PDF begins.
+	 * @param path Path of the PDF.
+	 * @param pageCount Number of pages in the PDF.
+	 * @return Receives the text of this PDF, it is only used from one thread.
+	 */
+	DocumentListener documentStarted(String path, int pageCount);
+}
@@ -0,0 +1,147 @@
+package com.gaspar.pdfextractor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the progress of the extraction, updated by the {@link TextExtractor}s. With the '-jmx' argument this
+ * is registered as an MBean named {@link #OBJECT_NAME}, so a long run can be watched with JConsole, VisualVM
+ * or any other JMX client while it runs. The counters are always updated, but they are just a few atomic increments.
+ * @author Gáspár Tamás
+ */
+public class ExtractionMetrics implements ExtractionMetricsMBean {
+
+	static final String OBJECT_NAME = "com.gaspar.pdfextractor:type=ExtractionMetrics";
+
+	/**
+	 * The counters of this process.
+	 */
+	private static final ExtractionMetrics instance = new ExtractionMetrics();
+
+	private final AtomicLong filesFound = new AtomicLong();
+
+	private final AtomicLong filesDone = new AtomicLong();
+
+	private final AtomicLong filesSkipped = new AtomicLong();
+
+	private final AtomicLong filesFailed = new AtomicLong();
+
+	private final AtomicLong pages = new AtomicLong();
+
+	private final Set<String> currentFiles = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Start of the current pages per second measurement.
+	 */
+	private long rateStartNanos = System.nanoTime();
+
+	/**
+	 * Pages at {@link #rateStartNanos}.
+	 */
+	private long rateStartPages;
+
+	private double pagesPerSecond;
+
+	private ExtractionMetrics() {}
+
+	public static ExtractionMetrics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Registers the MBean in the platform MBean server.
+	 * @param logger Logger object.
+	 */
+	public void register(Logger logger) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+			logger.log("A futás JMX-en figyelhető, az MBean neve: " + OBJECT_NAME);
+		} catch (JMException e) {
+			logger.logError("A JMX MBean-t nem sikerült regisztrálni: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Called when the PDF files of a job are listed.
+	 * @param count Number of PDF files found.
+	 */
+	void filesFound(int count) {
+		filesFound.addAndGet(count);
+	}
+
+	void fileStarted(String path) {
+		currentFiles.add(path);
+	}
+
+	/**
+	 * Called when a PDF is done.
+	 * @param path Path of the PDF.
+	 * @param outcome One of the outcomes in {@link ExtractionEvents}.
+	 */
+	void fileFinished(String path, String outcome) {
+		currentFiles.remove(path);
+		if(outcome.equals(ExtractionEvents.OUTCOME_WRITTEN)) {
+			filesDone.incrementAndGet();
+		} else if(outcome.equals(ExtractionEvents.OUTCOME_SKIPPED)) {
+			filesSkipped.incrementAndGet();
+		} else {
+			filesFailed.incrementAndGet();
+		}
+	}
+
+	void pageExtracted() {
+		pages.incrementAndGet();
+	}
+
+	@Override
+	public long getFilesDone() {
+		return filesDone.get();
+	}
+
+	@Override
+	public long getFilesSkipped() {
+		return filesSkipped.get();
+	}
+
+	@Override
+	public long getFilesFailed() {
+		return filesFailed.get();
+	}
+
+	@Override
+	public long getFilesQueued() {
+		return filesFound.get() - filesDone.get() - filesSkipped.get() - filesFailed.get();
+	}
+
+	@Override
+	public long getWords() {
+		return TextExtractor.getWordCount();
+	}
+
+	@Override
+	public long getPages() {
+		return pages.get();
+	}
+
+	@Override
+	public synchronized double getPagesPerSecond() {
+		long now = System.nanoTime();
+		if(now - rateStartNanos >= 1_000_000_000L) {
+			long currentPages = pages.get();
+			pagesPerSecond = (currentPages - rateStartPages) * 1e9 / (now - rateStartNanos);
+			rateStartNanos = now;
+			rateStartPages = currentPages;
+		}
+		return pagesPerSecond;
+	}
+
+	@Override
+	public String[] getCurrentFiles() {
+		return currentFiles.toArray(new String[0]);
+	}
+}
@@ -0,0 +1,48 @@
+package com.gaspar.pdfextractor;
+
+/**
+ * Live counters of the extraction, published over JMX with the '-jmx' argument. See {@link ExtractionMetrics}.
+ * @author Gáspár Tamás
+ */
+public interface ExtractionMetricsMBean {
+
+	/**
+	 * @return Number of PDF files whose text file was written.
+	 */
+	long getFilesDone();
+
+	/**
+	 * @return Number of skipped PDF files (encrypted, or the text file exists).
+	 */
+	long getFilesSkipped();
+
+	/**
+	 * @return Number of PDF files that could not be extracted.
+	 */
+	long getFilesFailed();
+
+	/**
+	 * @return Number of found PDF files which are not finished yet (including the ones in progress).
+	 */
+	long getFilesQueued();
+
+	/**
+	 * @return Number of extracted words.
+	 */
+	long getWords();
+
+	/**
+	 * @return Number of extracted pages.
+	 */
+	long getPages();
+
+	/**
+	 * @return Pages extracted per second, measured since the previous query (at least one second).
+	 */
+	double getPagesPerSecond();
+
+	/**
+	 * @return Paths of the PDF files in progress. More than one in the '-execution=async-io' mode.
+	 */
+	String[] getCurrentFiles();
+}
@@ -0,0 +1,184 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides the order of the PDF files, so that one huge folder does not make the others wait until it is done. This is
+ * enabled with the '-groupBy' argument. The PDF files are grouped by their top level subfolder (or by a part of their
+ * path, captured by a regex), and the groups are served in turns. With the '-weights' argument a group can get more
+ * turns than the others, for example with weights 3 and 1, the first group gets 3 PDF files for every 1 of the other.
+ * Groups without a weight have weight 1.
+ * <p>
+ * The turns are given with smooth weighted round robin, so the PDF files of a heavier group are spread evenly instead
+ * of coming in bursts. Both execution modes start the PDF files in the order of the list, so it is enough to reorder it.
+ * When a PDF is done, {@link #fileDone(File)} records its latency (the time since the extraction started), and
+ * {@link #report(Logger)} writes the latencies of the groups.
+ * @author Gáspár Tamás
+ */
+public class FairScheduler {
+
+	/**
+	 * Group of the PDF files directly in the searched folder, in folder mode.
+	 */
+	static final String ROOT_GROUP = ".";
+
+	/**
+	 * Group of the PDF files which don't match the regex, in regex mode.
+	 */
+	static final String UNMATCHED_GROUP = "(egyéb)";
+
+	/**
+	 * The searched folder, the paths are relative to this.
+	 */
+	private final Path folder;
+
+	/**
+	 * Captures the group from the relative path, or null to group by the top level subfolder.
+	 */
+	private final Pattern keyPattern;
+
+	private final Map<String, Integer> weights;
+
+	/**
+	 * Group of every scheduled PDF.
+	 */
+	private final Map<File, String> groupOfFile = new HashMap<>();
+
+	/**
+	 * Latencies of the finished PDF files in milliseconds, by group, in the order the groups were found.
+	 */
+	private final Map<String, List<Long>> latencies = new LinkedHashMap<>();
+
+	private long startNanos;
+
+	/**
+	 * Creates a scheduler.
+	 * @param folder The searched folder.
+	 * @param groupBy {@link CommandLineArguments#GROUP_BY_FOLDER}, or a regex. If the regex has a capturing group, the
+	 * group captures the key, otherwise the whole match is the key.
+	 * @param weights Weights of the groups, can be empty.
+	 */
+	public FairScheduler(File folder, String groupBy, Map<String, Integer> weights) {
+		this.folder = folder.toPath().toAbsolutePath().normalize();
+		this.keyPattern = groupBy.equals(CommandLineArguments.GROUP_BY_FOLDER) ? null : Pattern.compile(groupBy);
+		this.weights = weights;
+	}
+
+	/**
+	 * Finds the group of a PDF.
+	 * @param pdfFile The PDF.
+	 * @return The key of the group.
+	 */
+	String groupOf(File pdfFile) {
+		Path relative = folder.relativize(pdfFile.toPath().toAbsolutePath().normalize());
+		if(keyPattern == null) {
+			return relative.getNameCount() > 1 ? relative.getName(0).toString() : ROOT_GROUP;
+		}
+		Matcher matcher = keyPattern.matcher(relative.toString().replace(File.separatorChar, '/'));
+		if(!matcher.find()) return UNMATCHED_GROUP;
+		String key = matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+		return key == null ? UNMATCHED_GROUP : key;
+	}
+
+	/**
+	 * Orders the PDF files so that the groups are served in turns, and starts the latency measurement.
+	 * @param pdfFiles The PDF files. Inside a group their order is kept.
+	 * @return The reordered list.
+	 */
+	public List<File> schedule(List<File> pdfFiles) {
+		Map<String, Deque<File>> groups = new LinkedHashMap<>();
+		for(File pdfFile: pdfFiles) {
+			String group = groupOf(pdfFile);
+			groupOfFile.put(pdfFile, group);
+			groups.computeIfAbsent(group, g -> new ArrayDeque<>()).add(pdfFile);
+		}
+		for(String group: groups.keySet()) {
+			latencies.put(group, Collections.synchronizedList(new ArrayList<>()));
+		}
+		//smooth weighted round robin: every group gains its weight, the group with the most credit is served and pays the total
+		Map<String, Long> credits = new HashMap<>();
+		List<File> ordered = new ArrayList<>(pdfFiles.size());
+		while(ordered.size() < pdfFiles.size()) {
+			String best = null;
+			long total = 0;
+			for(Map.Entry<String, Deque<File>> entry: groups.entrySet()) {
+				if(entry.getValue().isEmpty()) continue;
+				int weight = weights.getOrDefault(entry.getKey(), 1);
+				long credit = credits.merge(entry.getKey(), (long)weight, Long::sum);
+				total += weight;
+				if(best == null || credit > credits.get(best)) best = entry.getKey();
+			}
+			credits.merge(best, -total, Long::sum);
+			ordered.add(groups.get(best).poll());
+		}
+		startNanos = System.nanoTime();
+		return ordered;
+	}
+
+	/**
+	 * Records that a PDF is done (extracted, skipped or failed). Can be called from multiple threads.
+	 * @param pdfFile The PDF.
+	 */
+	public void fileDone(File pdfFile) {
+		fileDone(pdfFile, (System.nanoTime() - startNanos) / 1_000_000);
+	}
+
+	/**
+	 * Records the latency of a PDF.
+	 * @param pdfFile The PDF.
+	 * @param latencyMillis Time since the extraction started, in milliseconds.
+	 */
+	void fileDone(File pdfFile, long latencyMillis) {
+		String group = groupOfFile.get(pdfFile);
+		if(group == null) return;
+		latencies.get(group).add(latencyMillis);
+	}
+
+	/**
+	 * Writes the number of PDF files, the average, median, 95th percentile and largest latency of every group.
+	 * @param logger Logger object.
+	 */
+	public void report(Logger logger) {
+		logger.log(describeLatencies());
+	}
+
+	/**
+	 * Creates the text written by {@link #report(Logger)}, groups without finished PDF files are left out.
+	 */
+	String describeLatencies() {
+		StringBuilder b = new StringBuilder("Csoportok késleltetése (a kinyerés kezdetétől a PDF elkészüléséig, ezredmásodperc):\n");
+		for(Map.Entry<String, List<Long>> entry: latencies.entrySet()) {
+			List<Long> sorted;
+			synchronized (entry.getValue()) {
+				sorted = new ArrayList<>(entry.getValue());
+			}
+			if(sorted.isEmpty()) continue;
+			Collections.sort(sorted);
+			double average = sorted.stream().mapToLong(Long::longValue).average().getAsDouble();
+			b.append(String.format(Locale.ROOT, "    %s (súly: %d): %d PDF, átlag: %.0f, medián: %d, 95%%: %d, legnagyobb: %d%n",
+					entry.getKey(), weights.getOrDefault(entry.getKey(), 1), sorted.size(), average,
+					percentile(sorted, 50), percentile(sorted, 95), sorted.get(sorted.size() - 1)));
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Nearest rank percentile of a sorted list.
+	 */
+	private static long percentile(List<Long> sorted, int percent) {
+		int rank = (int)Math.ceil(percent / 100.0 * sorted.size());
+		return sorted.get(Math.max(0, rank - 1));
+	}
+}
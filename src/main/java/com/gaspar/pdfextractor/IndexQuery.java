@@ -0,0 +1,154 @@
+package com.gaspar.pdfextractor;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Searches an index written by {@link InvertedIndex}. Only the dictionary and the document list are loaded into memory,
+ * the postings are read from the disk for the terms of the query. Can be run from the command line:
+ * <pre>{@code
+ * java -cp PdfTextExtractor.jar com.gaspar.pdfextractor.IndexQuery [index mappa] [szó1] [szó2] ...
+ * }</pre>
+ * This lists the pages which contain all the given words.
+ * @author Gáspár Tamás
+ */
+public class IndexQuery {
+
+	/**
+	 * Paths of the PDF files, by id.
+	 */
+	private final List<String> documents;
+
+	/**
+	 * Dictionary entry of every term.
+	 */
+	private final Map<String, TermEntry> dictionary;
+
+	/**
+	 * The postings file.
+	 */
+	private final File postingsFile;
+
+	/**
+	 * Position and size of the postings of a term.
+	 */
+	private static final class TermEntry {
+		private final int count;
+		private final long offset;
+		private final int length;
+
+		private TermEntry(int count, long offset, int length) {
+			this.count = count;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Opens an index.
+	 * @param folder The index folder.
+	 * @throws IOException If the index can't be read.
+	 */
+	public IndexQuery(File folder) throws IOException {
+		documents = Files.readAllLines(new File(folder, InvertedIndex.DOCUMENTS_FILE).toPath(), StandardCharsets.UTF_8);
+		postingsFile = new File(folder, InvertedIndex.POSTINGS_FILE);
+		dictionary = new HashMap<>();
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(folder, InvertedIndex.TERMS_FILE))))) {
+			if(in.readInt() != InvertedIndex.MAGIC || in.readInt() != InvertedIndex.VERSION) {
+				throw new IOException("Not an index file or unsupported version: " + folder.getAbsolutePath());
+			}
+			int termCount = in.readInt();
+			for(int i = 0; i < termCount; i++) {
+				String term = in.readUTF();
+				dictionary.put(term, new TermEntry(in.readInt(), in.readLong(), in.readInt()));
+			}
+		}
+	}
+
+	/**
+	 * Finds the pages which contain all the words.
+	 * @param words The words, they are normalized the same way as during indexing.
+	 * @return PDF paths mapped to the page numbers, in the order of the PDF ids. Empty if nothing matched.
+	 * @throws IOException If the postings can't be read.
+	 */
+	public Map<String, TreeSet<Integer>> search(String... words) throws IOException {
+		Set<Long> matches = null; //document id << 32 | page
+		try(RandomAccessFile postings = new RandomAccessFile(postingsFile, "r")) {
+			for(String word: words) {
+				String term = InvertedIndex.normalizeTerm(word);
+				if(term.isEmpty()) continue;
+				TermEntry entry = dictionary.get(term);
+				if(entry == null) return new LinkedHashMap<>();
+				byte[] bytes = new byte[entry.length];
+				postings.seek(entry.offset);
+				postings.readFully(bytes);
+				int[] decoded = InvertedIndex.decodePostings(bytes, entry.count);
+				Set<Long> termMatches = new HashSet<>();
+				for(int i = 0; i < decoded.length; i += 3) {
+					long key = ((long)decoded[i] << 32) | decoded[i + 1];
+					if(matches == null || matches.contains(key)) {
+						termMatches.add(key);
+					}
+				}
+				matches = termMatches;
+			}
+		}
+		Map<String, TreeSet<Integer>> result = new LinkedHashMap<>();
+		if(matches == null) return result;
+		List<Long> keys = new ArrayList<>(matches);
+		keys.sort(null);
+		for(long key: keys) {
+			String document = documents.get((int)(key >>> 32));
+			result.computeIfAbsent(document, d -> new TreeSet<>()).add((int)key);
+		}
+		return result;
+	}
+
+	public int getDocumentCount() {
+		return documents.size();
+	}
+
+	public int getTermCount() {
+		return dictionary.size();
+	}
+
+	/**
+	 * Belépési pont a kereséshez.
+	 * @param args Az index mappája, utána a keresett szavak.
+	 */
+	public static void main(String[] args) {
+		if(args.length < 2) {
+			System.err.println("Használat: java -cp PdfTextExtractor.jar com.gaspar.pdfextractor.IndexQuery [index mappa] [szó1] [szó2] ...");
+			return;
+		}
+		String[] words = new String[args.length - 1];
+		System.arraycopy(args, 1, words, 0, words.length);
+		try {
+			IndexQuery query = new IndexQuery(new File(args[0]));
+			Map<String, TreeSet<Integer>> result = query.search(words);
+			if(result.isEmpty()) {
+				System.out.println("Nincs olyan oldal, ami minden szót tartalmaz.");
+				return;
+			}
+			for(Map.Entry<String, TreeSet<Integer>> entry: result.entrySet()) {
+				System.out.println(entry.getKey() + ": " + entry.getValue().size() + " oldal " + entry.getValue());
+			}
+		} catch (IOException e) {
+			System.err.println("Az indexet nem sikerült beolvasni: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package com.gaspar.pdfextractor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Full text inverted index, built from the words of the PDF files during the extraction (this is enabled
+ * with the '-index' argument). For every term the index stores the postings: in which PDF, on which page and
+ * how many times the term appears. The postings are kept in primitive int arrays while building, and they
+ * are compressed with delta and variable length encoding on disk.
+ * <p>
+ * The index folder contains these files:
+ * <ul>
+ * <li>{@value #DOCUMENTS_FILE}: paths of the PDF files, one per line. The line number (from 0) is the id of the PDF.</li>
+ * <li>{@value #TERMS_FILE}: the dictionary, sorted by term, with the position of the postings of every term.</li>
+ * <li>{@value #POSTINGS_FILE}: the encoded postings.</li>
+ * </ul>
+ * The index can be searched with {@link IndexQuery}.
+ * @author Gáspár Tamás
+ */
+public class InvertedIndex implements ExtractionListener {
+
+	static final String DOCUMENTS_FILE = "documents.txt";
+
+	static final String TERMS_FILE = "terms.dat";
+
+	static final String POSTINGS_FILE = "postings.dat";
+
+	/**
+	 * Written at the beginning of {@link #TERMS_FILE}.
+	 */
+	static final int MAGIC = 0x50445849; //"PDXI"
+
+	static final int VERSION = 1;
+
+	/**
+	 * Longer terms are not indexed, these are usually not real words (for example text without spaces).
+	 */
+	static final int MAX_TERM_LENGTH = 100;
+
+	/**
+	 * Paths of the indexed PDF files, the index in this list is the id of the PDF.
+	 */
+	private final List<String> documents = new ArrayList<>();
+
+	/**
+	 * Postings of every term as (document id, page, frequency) triples, ordered by document id and page.
+	 */
+	private final Map<String, IntList> postings = new HashMap<>();
+
+	@Override
+	public DocumentListener documentStarted(String path, int pageCount) {
+		return new DocumentPostings(path);
+	}
+
+	/**
+	 * Collects the postings of one PDF, and adds them to the index only when the whole PDF was extracted. This
+	 * way a PDF gets an id when it's finished, so the postings of each term remain ordered even when
+	 * the PDF files are extracted in parallel.
+	 */
+	private final class DocumentPostings implements DocumentListener {
+
+		private final String path;
+
+		/**
+		 * (page, frequency) pairs of every term.
+		 */
+		private final Map<String, IntList> pages = new HashMap<>();
+
+		private DocumentPostings(String path) {
+			this.path = path;
+		}
+
+		@Override
+		public void token(int pageNumber, String token) {
+			String term = normalizeTerm(token);
+			if(term.isEmpty() || term.length() > MAX_TERM_LENGTH) return;
+			IntList termPages = pages.computeIfAbsent(term, t -> new IntList(4));
+			int size = termPages.size();
+			if(size > 0 && termPages.get(size - 2) == pageNumber) {
+				termPages.set(size - 1, termPages.get(size - 1) + 1);
+			} else {
+				termPages.add(pageNumber);
+				termPages.add(1);
+			}
+		}
+
+		@Override
+		public void documentFinished() {
+			synchronized (InvertedIndex.this) {
+				int documentId = documents.size();
+				documents.add(path);
+				for(Map.Entry<String, IntList> entry: pages.entrySet()) {
+					IntList termPostings = postings.computeIfAbsent(entry.getKey(), t -> new IntList(6));
+					IntList termPages = entry.getValue();
+					for(int i = 0; i < termPages.size(); i += 2) {
+						termPostings.add(documentId);
+						termPostings.add(termPages.get(i));
+						termPostings.add(termPages.get(i + 1));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a term from a word: the punctuation is removed from the beginning and the end, and it's converted
+	 * to lower case. Queries are normalized the same way.
+	 * @param token The word.
+	 * @return The term, can be empty if the word had no letters or digits.
+	 */
+	static String normalizeTerm(String token) {
+		int begin = 0, end = token.length();
+		while(begin < end && !Character.isLetterOrDigit(token.charAt(begin))) begin++;
+		while(end > begin && !Character.isLetterOrDigit(token.charAt(end - 1))) end--;
+		return token.substring(begin, end).toLowerCase(Locale.ROOT);
+	}
+
+	public synchronized int getDocumentCount() {
+		return documents.size();
+	}
+
+	public synchronized int getTermCount() {
+		return postings.size();
+	}
+
+	/**
+	 * Writes the index into a folder, the existing index files are replaced.
+	 * @param folder The folder, created if it does not exist.
+	 * @throws IOException If the index can't be written.
+	 */
+	public synchronized void write(File folder) throws IOException {
+		if(!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Can't create index folder: " + folder.getAbsolutePath());
+		}
+		try(PrintWriter writer = new PrintWriter(new File(folder, DOCUMENTS_FILE), StandardCharsets.UTF_8.name())) {
+			for(String document: documents) {
+				writer.println(document);
+			}
+		}
+		String[] terms = postings.keySet().toArray(new String[0]);
+		Arrays.sort(terms);
+		try(DataOutputStream dictionary = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(folder, TERMS_FILE))));
+				OutputStream postingsOut = new BufferedOutputStream(new FileOutputStream(new File(folder, POSTINGS_FILE)), 1 << 16)) {
+			dictionary.writeInt(MAGIC);
+			dictionary.writeInt(VERSION);
+			dictionary.writeInt(terms.length);
+			long offset = 0;
+			for(String term: terms) {
+				IntList termPostings = postings.get(term);
+				int length = encodePostings(termPostings, postingsOut);
+				dictionary.writeUTF(term);
+				dictionary.writeInt(termPostings.size() / 3);
+				dictionary.writeLong(offset);
+				dictionary.writeInt(length);
+				offset += length;
+			}
+		}
+	}
+
+	/**
+	 * Encodes the postings of a term. The document id is stored as the difference from the previous one, the
+	 * page as the difference from the previous page in the same document. All numbers are written with
+	 * variable length encoding (7 bits per byte).
+	 * @param termPostings (document id, page, frequency) triples.
+	 * @param out Written here.
+	 * @return Number of bytes written.
+	 * @throws IOException If writing fails.
+	 */
+	private static int encodePostings(IntList termPostings, OutputStream out) throws IOException {
+		int length = 0;
+		int previousDocument = 0, previousPage = 0;
+		for(int i = 0; i < termPostings.size(); i += 3) {
+			int document = termPostings.get(i), page = termPostings.get(i + 1), frequency = termPostings.get(i + 2);
+			int documentDelta = document - previousDocument;
+			if(documentDelta != 0) previousPage = 0;
+			length += writeVarInt(documentDelta, out);
+			length += writeVarInt(page - previousPage, out);
+			length += writeVarInt(frequency, out);
+			previousDocument = document;
+			previousPage = page;
+		}
+		return length;
+	}
+
+	private static int writeVarInt(int value, OutputStream out) throws IOException {
+		int written = 1;
+		while((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+			written++;
+		}
+		out.write(value);
+		return written;
+	}
+
+	/**
+	 * Decodes the postings written by {@link #encodePostings(IntList, OutputStream)}.
+	 * @param bytes The encoded postings.
+	 * @param count Number of postings.
+	 * @return (document id, page, frequency) triples.
+	 */
+	static int[] decodePostings(byte[] bytes, int count) {
+		int[] decoded = new int[count * 3];
+		int[] position = new int[1];
+		int document = 0, page = 0;
+		for(int i = 0; i < count; i++) {
+			int documentDelta = readVarInt(bytes, position);
+			if(documentDelta != 0) page = 0;
+			document += documentDelta;
+			page += readVarInt(bytes, position);
+			decoded[i * 3] = document;
+			decoded[i * 3 + 1] = page;
+			decoded[i * 3 + 2] = readVarInt(bytes, position);
+		}
+		return decoded;
+	}
+
+	/**
+	 * Reads a number written by {@link #writeVarInt(int, OutputStream)}.
+	 * @param bytes The encoded bytes.
+	 * @param position Position of the next byte, it's advanced past the number.
+	 * @return The number.
+	 */
+	private static int readVarInt(byte[] bytes, int[] position) {
+		int value = 0, shift = 0;
+		byte b;
+		do {
+			b = bytes[position[0]++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Growable array of primitive ints, so that the postings don't need boxed integers.
+	 */
+	static final class IntList {
+
+		private int[] values;
+
+		private int size;
+
+		IntList(int capacity) {
+			values = new int[capacity];
+		}
+
+		void add(int value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, Math.max(4, size * 2));
+			}
+			values[size++] = value;
+		}
+
+		int get(int index) {
+			return values[index];
+		}
+
+		void set(int index, int value) {
+			values[index] = value;
+		}
+
+		int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.gaspar.pdfextractor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Beolvassa a '-jobs' argumentummal megadott feladatfájlt. Minden nem üres és nem '#'-el kezdődő sor egy feladat,
+ * ami a parancssorhoz hasonlóan, szóközökkel elválasztott argumentumokból áll. A sort nem dolgozza fel parancsértelmező (shell), 
+ * így a '*' és a '\' elé nem kell semmi, ezek változatlanul kerülnek az argumentumba. Ha egy érték szóközt tartalmaz, akkor idézőjelek 
+ * közé kell tenni (az idézőjelek nem kerülnek az értékbe, idézőjel nem lehet az értékben). Például:
+ * <pre>{@code
+ * # szamlak
+ * -mode=regex -folder=szamlak -regex=.*2021.* -recursive -overwrite=all
+ * -mode=single -path="docs/2021 tavasz/document.pdf"
+ * }</pre>
+ * Minden sor már a beolvasáskor ellenőrizve van, így egy hibás sor miatt egy feladat sem fut le.
+ * @author Gáspár Tamás
+ */
+public class JobFile {
+
+	/**
+	 * A feladatfájl egy feladata.
+	 */
+	public static final class Job {
+
+		/**
+		 * Hányadik sorban van a fájlban (1-től).
+		 */
+		private final int lineNumber;
+
+		/**
+		 * A sor, ahogy a fájlban van.
+		 */
+		private final String line;
+
+		private final CommandLineArguments arguments;
+
+		private Job(int lineNumber, String line, CommandLineArguments arguments) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+			this.arguments = arguments;
+		}
+
+		public int getLineNumber() {
+			return lineNumber;
+		}
+
+		public String getLine() {
+			return line;
+		}
+
+		public CommandLineArguments getArguments() {
+			return arguments;
+		}
+	}
+
+	/**
+	 * Beolvassa és ellenőrzi a feladatokat.
+	 * @param arguments A közös argumentumok, amikben a '-jobs' meg van adva.
+	 * @return A feladatok, a fájlban lévő sorrendben.
+	 * @throws IllegalArgumentException Ha a fájl nem olvasható, nincs benne feladat, vagy valamelyik sora hibás.
+	 */
+	public static List<Job> read(CommandLineArguments arguments) throws IllegalArgumentException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(Paths.get(arguments.getJobFile()), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("A " + arguments.getJobFile() + " feladatfájlt nem sikerült beolvasni!", e);
+		}
+		List<Job> jobs = new ArrayList<>();
+		for(int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if(line.isEmpty() || line.startsWith("#")) continue;
+			CommandLineArguments jobArguments;
+			try {
+				jobArguments = new CommandLineArguments(split(line), true);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("A feladatfájl " + (i + 1) + ". sora hibás: " + e.getMessage(), e.getCause());
+			}
+			if(arguments.getExecution().equals(CommandLineArguments.EXECUTION_ASYNC_IO)
+					&& jobArguments.getOverwrite().equals(CommandLineArguments.OVERWRITE_SELECT)) {
+				throw new IllegalArgumentException("A feladatfájl " + (i + 1) + ". sora hibás: az '-execution=async-io' mód nem használható a '-overwrite=select' argumentummal!");
+			}
+			jobs.add(new Job(i + 1, line, jobArguments));
+		}
+		if(jobs.isEmpty()) {
+			throw new IllegalArgumentException("A " + arguments.getJobFile() + " feladatfájlban nincs egy feladat sem!");
+		}
+		return jobs;
+	}
+
+	/**
+	 * Szóközök mentén darabolja a sort. Az idézőjelek közötti szóközök nem választanak el, az idézőjelek kimaradnak.
+	 * @param line A feladatfájl egy sora.
+	 * @return Az argumentumok.
+	 * @throws IllegalArgumentException Ha egy idézőjel nincs lezárva.
+	 */
+	static String[] split(String line) throws IllegalArgumentException {
+		List<String> args = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false, inArgument = false;
+		for(char c: line.toCharArray()) {
+			if(c == '"') {
+				quoted = !quoted;
+				inArgument = true; //egy üres "" is argumentum
+			} else if(Character.isWhitespace(c) && !quoted) {
+				if(inArgument) {
+					args.add(current.toString());
+					current.setLength(0);
+					inArgument = false;
+				}
+			} else {
+				current.append(c);
+				inArgument = true;
+			}
+		}
+		if(quoted) {
+			throw new IllegalArgumentException("Lezáratlan idézőjel!");
+		}
+		if(inArgument) args.add(current.toString());
+		return args.toArray(new String[0]);
+	}
+}
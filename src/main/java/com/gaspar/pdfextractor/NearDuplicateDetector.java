@@ -0,0 +1,237 @@
+package com.gaspar.pdfextractor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Finds PDF files with nearly the same text (for example re-saved or re-scanned versions of the same document). This is
+ * enabled with the '-duplicates' argument.
+ * <p>
+ * While the words of a PDF are extracted, a MinHash signature is computed from the shingles (groups of
+ * {@link #SHINGLE_SIZE} consecutive words) of the text. The signature is {@link #SIGNATURE_SIZE} ints, independently of the
+ * length of the text, and the ratio of equal ints in two signatures estimates the Jaccard similarity of the two texts.
+ * At the end, the candidate pairs are found with LSH banding (PDF files whose signatures are equal in at least one band), so
+ * the PDF files don't have to be compared pairwise.
+ * @author Gáspár Tamás
+ */
+public class NearDuplicateDetector implements ExtractionListener {
+
+	/**
+	 * Number of consecutive words in a shingle.
+	 */
+	static final int SHINGLE_SIZE = 5;
+
+	/**
+	 * Number of hash functions, which is the size of the signature.
+	 */
+	static final int SIGNATURE_SIZE = 128;
+
+	/**
+	 * The signature is divided into this many bands for LSH. With {@link #ROWS_PER_BAND} rows in a band, PDF files with
+	 * a similarity above about 0.7 are very likely to become candidates.
+	 */
+	static final int BANDS = 16;
+
+	static final int ROWS_PER_BAND = SIGNATURE_SIZE / BANDS;
+
+	/**
+	 * Candidates are near duplicates if their estimated similarity is at least this much.
+	 */
+	static final double SIMILARITY_THRESHOLD = 0.8;
+
+	/**
+	 * Seeds of the hash functions. Fixed, so that signatures are the same in every run.
+	 */
+	private static final long[] SEEDS = new SplittableRandom(0x5EED_F00DL).longs(SIGNATURE_SIZE).toArray();
+
+	/**
+	 * Paths of the PDF files which have a signature.
+	 */
+	private final List<String> paths = new ArrayList<>();
+
+	/**
+	 * Signatures, in the same order as {@link #paths}.
+	 */
+	private final List<int[]> signatures = new ArrayList<>();
+
+	@Override
+	public DocumentListener documentStarted(String path, int pageCount) {
+		return new SignatureBuilder(path);
+	}
+
+	/**
+	 * Computes the signature of one PDF as the words arrive.
+	 */
+	private final class SignatureBuilder implements DocumentListener {
+
+		private final String path;
+
+		private final int[] signature = new int[SIGNATURE_SIZE];
+
+		/**
+		 * Hashes of the last {@link #SHINGLE_SIZE} words, used as a ring buffer.
+		 */
+		private final long[] window = new long[SHINGLE_SIZE];
+
+		/**
+		 * Number of words seen so far.
+		 */
+		private long words;
+
+		private SignatureBuilder(String path) {
+			this.path = path;
+			Arrays.fill(signature, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public void token(int pageNumber, String token) {
+			String term = InvertedIndex.normalizeTerm(token);
+			if(term.isEmpty()) return;
+			window[(int)(words % SHINGLE_SIZE)] = hashTerm(term);
+			words++;
+			if(words >= SHINGLE_SIZE) addShingle(SHINGLE_SIZE);
+		}
+
+		@Override
+		public void documentFinished() {
+			if(words == 0) return; //no text, nothing to compare
+			if(words < SHINGLE_SIZE) addShingle((int)words); //short text is one shingle
+			synchronized (NearDuplicateDetector.this) {
+				paths.add(path);
+				signatures.add(signature);
+			}
+		}
+
+		/**
+		 * Hashes the last words into a shingle, and updates the signature with it.
+		 * @param size Number of words in the shingle.
+		 */
+		private void addShingle(int size) {
+			long shingle = 0;
+			for(int i = size; i > 0; i--) {
+				shingle = shingle * 31 + window[(int)((words - i) % SHINGLE_SIZE)];
+			}
+			for(int i = 0; i < SIGNATURE_SIZE; i++) {
+				int hash = (int)(mix(shingle ^ SEEDS[i]) >>> 32);
+				if(hash < signature[i]) signature[i] = hash;
+			}
+		}
+	}
+
+	/**
+	 * 64 bit FNV-1a hash of a word.
+	 */
+	private static long hashTerm(String term) {
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < term.length(); i++) {
+			hash ^= term.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Finalizer of the MurmurHash3 64 bit hash, spreads the bits of the value.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	/**
+	 * Estimates the similarity of two texts from their signatures.
+	 * @return Ratio of the equal values, between 0 and 1.
+	 */
+	static double estimateSimilarity(int[] a, int[] b) {
+		int equal = 0;
+		for(int i = 0; i < SIGNATURE_SIZE; i++) {
+			if(a[i] == b[i]) equal++;
+		}
+		return (double)equal / SIGNATURE_SIZE;
+	}
+
+	public synchronized int getDocumentCount() {
+		return paths.size();
+	}
+
+	/**
+	 * @return The signature of a PDF, or null if it has none.
+	 */
+	synchronized int[] signatureOf(String path) {
+		int index = paths.indexOf(path);
+		return index < 0 ? null : signatures.get(index);
+	}
+
+	/**
+	 * Finds the groups of near duplicate PDF files. Two PDF files are in the same group if they are connected
+	 * by a chain of pairs with at least {@link #SIMILARITY_THRESHOLD} similarity.
+	 * @return The groups (with at least 2 paths each), largest first, groups of the same size ordered by their first path.
+	 * Paths are sorted inside a group.
+	 */
+	public synchronized List<List<String>> findClusters() {
+		int count = paths.size();
+		int[] parent = new int[count];
+		for(int i = 0; i < count; i++) parent[i] = i;
+		for(int band = 0; band < BANDS; band++) {
+			Map<Long, List<Integer>> buckets = new HashMap<>();
+			for(int document = 0; document < count; document++) {
+				buckets.computeIfAbsent(hashBand(signatures.get(document), band), k -> new ArrayList<>(2)).add(document);
+			}
+			for(List<Integer> bucket: buckets.values()) {
+				//every candidate pair of the bucket is checked (unless already in the same group), so the groups don't depend on the order
+				for(int i = 1; i < bucket.size(); i++) {
+					int other = bucket.get(i);
+					for(int j = 0; j < i; j++) {
+						int previous = bucket.get(j);
+						if(find(parent, previous) == find(parent, other)) continue;
+						if(estimateSimilarity(signatures.get(previous), signatures.get(other)) >= SIMILARITY_THRESHOLD) {
+							parent[find(parent, other)] = find(parent, previous);
+						}
+					}
+				}
+			}
+		}
+		Map<Integer, List<String>> groups = new HashMap<>();
+		for(int document = 0; document < count; document++) {
+			groups.computeIfAbsent(find(parent, document), k -> new ArrayList<>()).add(paths.get(document));
+		}
+		List<List<String>> clusters = new ArrayList<>();
+		for(List<String> group: groups.values()) {
+			if(group.size() > 1) {
+				group.sort(null);
+				clusters.add(group);
+			}
+		}
+		//the order of extraction depends on the threads, so the report is sorted
+		clusters.sort(Comparator.comparingInt((List<String> cluster) -> -cluster.size()).thenComparing(cluster -> cluster.get(0)));
+		return clusters;
+	}
+
+	private static long hashBand(int[] signature, int band) {
+		long hash = band;
+		for(int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+			hash = hash * 1_000_003L + signature[row];
+		}
+		return hash;
+	}
+
+	/**
+	 * Union-find lookup with path halving.
+	 */
+	private static int find(int[] parent, int element) {
+		while(parent[element] != element) {
+			parent[element] = parent[parent[element]];
+			element = parent[element];
+		}
+		return element;
+	}
+}
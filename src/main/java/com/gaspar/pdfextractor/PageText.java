@@ -0,0 +1,71 @@
+package com.gaspar.pdfextractor;
+
+/**
+ * Text of one page of a PDF file. These are the events published by {@link PageTextPublisher}.
+ * @author Gáspár Tamás
+ */
+public class PageText {
+
+	/**
+	 * Path of the PDF which contains this page.
+	 */
+	private final String path;
+
+	/**
+	 * Number of the page, starting from 1.
+	 */
+	private final int pageNumber;
+
+	/**
+	 * How many pages the PDF has in total.
+	 */
+	private final int pageCount;
+
+	/**
+	 * The text extracted from the page.
+	 */
+	private final String text;
+
+	/**
+	 * Creates a page text event.
+	 * @param path Path of the PDF.
+	 * @param pageNumber Number of the page, starting from 1.
+	 * @param pageCount Number of pages in the PDF.
+	 * @param text Text of the page.
+	 */
+	public PageText(String path, int pageNumber, int pageCount, String text) {
+		this.path = path;
+		this.pageNumber = pageNumber;
+		this.pageCount = pageCount;
+		this.text = text;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Checks if this is the last page of the PDF.
+	 * @return True if no more pages follow from the same PDF.
+	 */
+	public boolean isLastPage() {
+		return pageNumber == pageCount;
+	}
+
+	@Override
+	public String toString() {
+		return path + " [" + pageNumber + "/" + pageCount + "]";
+	}
+}
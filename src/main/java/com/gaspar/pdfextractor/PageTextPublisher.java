@@ -0,0 +1,304 @@
+package com.gaspar.pdfextractor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+
+/**
+ * Publishes the text of PDF files page by page, as {@link PageText} events. Multiple PDF files are
+ * merged into one stream: the pages of the first file are published, then the pages of the second, and so on.
+ * <p>
+ * Extraction is driven by the demand of the subscriber: a page is only extracted when the subscriber
+ * requested it with {@link Flow.Subscription#request(long)}, so a slow subscriber slows down the extraction
+ * instead of whole documents being buffered in memory. Only one PDF is open at a time for each subscription.
+ * <p>
+ * Every subscription reads the files independently. Encrypted or unreadable PDF files are skipped (and
+ * reported to the {@link Logger}, if there is one), they don't terminate the stream. This includes the runtime
+ * exceptions iText throws for malformed content (for example a page using an undefined font), only an unexpected
+ * error of the drain loop itself is signaled with {@link Flow.Subscriber#onError(Throwable)}.
+ * @author Gáspár Tamás
+ */
+public class PageTextPublisher implements Flow.Publisher<PageText> {
+
+	/**
+	 * Paths of the PDF files, in the order they are published.
+	 */
+	private final List<String> paths;
+
+	/**
+	 * Logger object, can be null.
+	 */
+	private final Logger logger;
+
+	/**
+	 * The extraction and the signals to the subscribers are performed on this.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Creates a publisher that extracts on the common fork join pool.
+	 * @param paths Paths of the PDF files.
+	 * @param logger Logger object, can be null.
+	 */
+	public PageTextPublisher(List<String> paths, Logger logger) {
+		this(paths, logger, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a publisher.
+	 * @param paths Paths of the PDF files.
+	 * @param logger Logger object, can be null.
+	 * @param executor Extraction is performed on this executor.
+	 */
+	public PageTextPublisher(List<String> paths, Logger logger, Executor executor) {
+		this.paths = new ArrayList<>(paths);
+		this.logger = logger;
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super PageText> subscriber) {
+		Objects.requireNonNull(subscriber);
+		PageSubscription subscription = new PageSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * Subscription of one subscriber. Pages are extracted in the {@link #drain()} loop, which runs on the
+	 * {@link #executor}, and at most one instance of it runs at the same time.
+	 */
+	final class PageSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super PageText> subscriber;
+
+		/**
+		 * The PDF files which are not yet opened.
+		 */
+		private final Iterator<String> remaining;
+
+		/**
+		 * Number of requested, but not yet published pages.
+		 */
+		private final AtomicLong requested = new AtomicLong();
+
+		/**
+		 * Counts the drain requests, so that only one drain loop runs at a time.
+		 */
+		private final AtomicInteger wip = new AtomicInteger();
+
+		private volatile boolean cancelled;
+
+		/**
+		 * Error that must be signaled to the subscriber, or null.
+		 */
+		private volatile Throwable error;
+
+		/**
+		 * Set when the subscription was terminated (completed or failed). Only used from the drain loop.
+		 */
+		private boolean done;
+
+		/**
+		 * The currently open PDF, or null.
+		 */
+		private PdfReader reader;
+
+		private String currentPath;
+
+		private int currentPage;
+
+		private int pageCount;
+
+		private PageSubscription(Flow.Subscriber<? super PageText> subscriber) {
+			this.subscriber = subscriber;
+			this.remaining = paths.iterator();
+		}
+
+		@Override
+		public void request(long n) {
+			if(n <= 0) {
+				//this is a protocol violation, which must be signaled with an error
+				error = new IllegalArgumentException("Non-positive request: " + n);
+				scheduleDrain();
+				return;
+			}
+			long current, updated;
+			do {
+				current = requested.get();
+				if(current == Long.MAX_VALUE) break; //unbounded
+				updated = current + n;
+				if(updated < 0) updated = Long.MAX_VALUE;
+			} while(!requested.compareAndSet(current, updated));
+			scheduleDrain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			scheduleDrain(); //the drain loop closes the open PDF
+		}
+
+		private void scheduleDrain() {
+			if(wip.getAndIncrement() == 0) {
+				executor.execute(this::drain);
+			}
+		}
+
+		/**
+		 * Runs the {@link #drainLoop()}. If it fails unexpectedly, the subscriber gets the error, so the stream
+		 * never stays without a terminal signal.
+		 */
+		private void drain() {
+			try {
+				drainLoop();
+			} catch (RuntimeException e) {
+				if(!done) {
+					finish();
+					subscriber.onError(e);
+				}
+			}
+		}
+
+		/**
+		 * Publishes as many pages as requested, then completes the subscriber if there are no more pages.
+		 */
+		private void drainLoop() {
+			int missed = 1;
+			while(true) {
+				if(done) return;
+				if(error != null && !cancelled) {
+					finish();
+					subscriber.onError(error);
+					return;
+				}
+				long demand = requested.get();
+				long emitted = 0;
+				while(emitted != demand) {
+					if(cancelled) {
+						finish();
+						return;
+					}
+					PageText page = nextPage();
+					if(page == null) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+					try {
+						subscriber.onNext(page);
+					} catch (RuntimeException e) {
+						//the subscriber violated the protocol, it gets no more signals
+						finish();
+						return;
+					}
+					emitted++;
+				}
+				if(cancelled) {
+					finish();
+					return;
+				}
+				//completion does not need demand
+				if(reader == null && !remaining.hasNext()) {
+					finish();
+					subscriber.onComplete();
+					return;
+				}
+				if(emitted != 0 && demand != Long.MAX_VALUE) {
+					requested.addAndGet(-emitted);
+				}
+				missed = wip.addAndGet(-missed);
+				if(missed == 0) return;
+			}
+		}
+
+		/**
+		 * Extracts the next page, opening the next PDF if needed.
+		 * @return The page, or null if all PDF files are done.
+		 */
+		private PageText nextPage() {
+			while(true) {
+				if(reader == null && !openNextReader()) {
+					return null;
+				}
+				if(currentPage < pageCount) {
+					currentPage++;
+					try {
+						String text = PdfTextExtractor.getTextFromPage(reader, currentPage);
+						PageText page = new PageText(currentPath, currentPage, pageCount, text);
+						//close as soon as possible, so that completion can be detected without more demand
+						if(currentPage == pageCount) closeReader();
+						return page;
+					} catch (IOException | RuntimeException e) {
+						logError("A " + currentPath + " fájlból nem sikerült a kinyerés a " + currentPage + ". oldalon, a fájl többi részét kihagyom. A hiba oka: " + e);
+					}
+				}
+				//this PDF is done (or failed)
+				closeReader();
+			}
+		}
+
+		/**
+		 * Opens the next PDF that can be read.
+		 * @return False if there are no more PDF files.
+		 */
+		private boolean openNextReader() {
+			while(remaining.hasNext()) {
+				String path = remaining.next();
+				try {
+					PdfReader next = new PdfReader(path);
+					if(next.isEncrypted()) {
+						log("Titkosított PDF, ezért kihagyom: " + path);
+						next.close();
+						continue;
+					}
+					reader = next;
+					currentPath = path;
+					currentPage = 0;
+					pageCount = next.getNumberOfPages();
+					return true;
+				} catch (IOException | RuntimeException e) {
+					logError("A " + path + " fájlt nem sikerült megnyitni, kihagyom. A hiba oka: " + e);
+				}
+			}
+			return false;
+		}
+
+		private void closeReader() {
+			if(reader != null) {
+				reader.close();
+				reader = null;
+			}
+		}
+
+		/**
+		 * Used by the tests to check that the PDF is closed.
+		 * @return True if a PDF is open.
+		 */
+		boolean hasOpenReader() {
+			return reader != null;
+		}
+
+		private void finish() {
+			done = true;
+			closeReader();
+		}
+	}
+
+	private void log(String message) {
+		if(logger != null) logger.log(message);
+	}
+
+	private void logError(String message) {
+		if(logger != null) logger.logError(message);
+	}
+}
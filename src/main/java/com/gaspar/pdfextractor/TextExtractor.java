@@ -1,10 +1,20 @@
 package com.gaspar.pdfextractor;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -23,9 +33,19 @@ public class TextExtractor {
 	private static final Scanner scanner = new Scanner(System.in);
 	
 	/**
-	 * Stores how many words were extracted.
+	 * Stores how many words were extracted. Atomic, because extractors may run in parallel.
 	 */
-	private static long wordCount = 0;
+	private static final AtomicLong wordCount = new AtomicLong();
+	
+	/**
+	 * These get the extracted text of every PDF.
+	 */
+	private static final List<ExtractionListener> listeners = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * Writes the text files, shared by all extractors.
+	 */
+	private static volatile TextFileWriter writer = TextFileWriter.DEFAULT;
 	
 	/**
 	 * Path of the PDF
@@ -34,9 +54,14 @@ public class TextExtractor {
 	
 	/**
 	 * Path to which the generated text fill will be placed. This is the same as 
-	 * the PDF path ({@link #path}), only the file extension is txt.
+	 * the PDF path ({@link #path}), only the file extension is txt (or jsonl, see {@link #format}).
 	 */
 	private final String textPath;
+	
+	/**
+	 * Output format, {@link CommandLineArguments#FORMAT_TXT} or {@link CommandLineArguments#FORMAT_JSONL}.
+	 */
+	private final String format;
 
 	/**
 	 * Determindes overwrite mode.
@@ -49,12 +74,61 @@ public class TextExtractor {
 	private final Logger logger;
 	
 	/**
-	 * Creates an extractor.
+	 * Live counters, see {@link ExtractionMetrics}.
+	 */
+	private static final ExtractionMetrics metrics = ExtractionMetrics.getInstance();
+	
+	/**
+	 * Flight recorder event of the whole processing, from {@link #started()} until the PDF is done. Null if the
+	 * Flight Recorder is not running, see {@link ExtractionEvents#isRecording()}.
+	 */
+	private ExtractionEvents.FileExtraction fileEvent;
+	
+	/**
+	 * If {@link #finished(String)} was already called.
+	 */
+	private boolean done;
+	
+	/**
+	 * In jsonl format: the text file the records are written into while the pages are extracted, until {@link #writeText(String)}
+	 * commits it. Null if there is none.
+	 */
+	private TextFileWriter.Output output;
+	
+	/**
+	 * In jsonl format: the records are written on this executor, so that the thread extracting the pages does not block on
+	 * the file. Null if the extracting thread writes them. See {@link #setRecordExecutor(Executor)}.
+	 */
+	private Executor recordExecutor;
+	
+	/**
+	 * The record being written on the {@link #recordExecutor}, completes when it is in the {@link #output}. Null if there is none.
+	 */
+	private CompletableFuture<Void> recordWrite;
+	
+	/**
+	 * Receive the text of this PDF, see {@link ExtractionListener}. They are only told that the PDF is finished when its
+	 * text file is in place (see {@link #committed(IOException)}), so a PDF whose text file can't be written is left out.
+	 */
+	private List<DocumentListener> documentListeners = new ArrayList<>();
+	
+	/**
+	 * Creates an extractor which writes a txt file.
 	 * @param path Path to the PDF file.
 	 */
 	public TextExtractor(String path, String overwrite, Logger logger) {
+		this(path, overwrite, CommandLineArguments.FORMAT_TXT, logger);
+	}
+	
+	/**
+	 * Creates an extractor.
+	 * @param path Path to the PDF file.
+	 * @param format Output format.
+	 */
+	public TextExtractor(String path, String overwrite, String format, Logger logger) {
 		this.path = path;
-		this.textPath = generateTextPath(path);
+		this.format = format;
+		this.textPath = generateTextPath(path, format);
 		this.overwrite = overwrite;
 		this.logger = logger;
 	}
@@ -62,103 +136,425 @@ public class TextExtractor {
 	/**
 	 * Creates the text files path from the PDF path, see {@link #textPath}.
 	 * @param path PDF path.
+	 * @param format Output format, this is the extension.
 	 * @return Text path.
 	 */
-	private String generateTextPath(String p) {
+	private String generateTextPath(String p, String format) {
 		String extRemoved = FilenameUtils.removeExtension(p); //cut ".pdf"
-		return extRemoved + ".txt"; //append ".txt"
+		return extRemoved + "." + format; //append ".txt" or ".jsonl"
 	}
 	
 	/**
 	 * Performs the text extraction. A text file will be generated on {@link #textPath}.
 	 */
 	public void extractText() {
-		logger.log("Kezdem a kinyerést a " + path + " PDF fájlból...");
+		started();
 		try {
 			//open pdf file
 			final PdfReader reader = new PdfReader(path);
-			
-			//encrypted?!
-			if(reader.isEncrypted()) {
-				logger.log("Titkosított PDF, ezért kihagyom.");
-				return;
+			try {
+				//encrypted?!
+				if(isSkippedAsEncrypted(reader)) return;
+				//already exists?
+				if(!checkOverwrite()) return;
+				//begin extraction
+				String pdfText = extractPages(reader);
+				writeText(pdfText);
+			} finally {
+				reader.close();
+				discardOutput(); //only left if the extraction failed
 			}
-			//already exists?
-			final File textFile = new File(textPath);
-			if(textFile.exists()) {
-				if(overwrite.equals(CommandLineArguments.OVERWRITE_ALL)) {
-					//overwrite, mention this
-					logger.log("A " + textPath + " fájl már létezik, felülírom.");
-				} else if (overwrite.equals(CommandLineArguments.OVERWRITE_NONE)){
-					//no overwrite
-					logger.log("A " + textPath + " fájl létezik, és a felülírás ki van kapcsolva, ezért kihagyom.");
-					return;
+		} catch (IOException | RuntimeException e) {
+			//something failed (iText may also throw runtime exceptions for broken PDF files)
+			logFailure(e);
+		}
+	}
+	
+	/**
+	 * Called when the processing of the PDF begins.
+	 */
+	void started() {
+		logger.log("Kezdem a kinyerést a " + path + " PDF fájlból...");
+		if(ExtractionEvents.isRecording()) {
+			fileEvent = new ExtractionEvents.FileExtraction();
+			fileEvent.begin();
+		}
+		metrics.fileStarted(path);
+	}
+	
+	/**
+	 * Called when the PDF is done, commits the flight recorder event and updates the counters.
+	 * @param outcome One of the outcomes in {@link ExtractionEvents}.
+	 */
+	private void finished(String outcome) {
+		if(done) return;
+		done = true;
+		if(fileEvent != null) {
+			fileEvent.end();
+			if(fileEvent.shouldCommit()) {
+				fileEvent.path = path;
+				fileEvent.outcome = outcome;
+				fileEvent.commit();
+			}
+			fileEvent = null;
+		}
+		metrics.fileFinished(path, outcome);
+	}
+	
+	/**
+	 * Called when the PDF is not extracted.
+	 * @param reason One of the skip reasons in {@link ExtractionEvents}.
+	 */
+	private void skipped(String reason) {
+		discardOutput(); //opened in async-io mode before the PDF was found to be encrypted
+		if(ExtractionEvents.isRecording()) {
+			ExtractionEvents.FileSkipped event = new ExtractionEvents.FileSkipped();
+			if(event.shouldCommit()) {
+				event.path = path;
+				event.reason = reason;
+				event.commit();
+			}
+		}
+		finished(ExtractionEvents.OUTCOME_SKIPPED);
+	}
+	
+	/**
+	 * Checks if the PDF is encrypted, in which case it must be skipped.
+	 * @param reader The opened PDF.
+	 * @return True if the PDF is encrypted.
+	 */
+	boolean isSkippedAsEncrypted(PdfReader reader) {
+		if(reader.isEncrypted()) {
+			logger.log("Titkosított PDF, ezért kihagyom.");
+			skipped(ExtractionEvents.SKIP_ENCRYPTED);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks if the text file already exists, and if it does, decides if it can be overwritten 
+	 * according to {@link #overwrite}. In select mode this asks the user.
+	 * @return True if the extraction can continue.
+	 */
+	boolean checkOverwrite() {
+		final File textFile = new File(textPath);
+		if(textFile.exists()) {
+			if(overwrite.equals(CommandLineArguments.OVERWRITE_ALL)) {
+				//overwrite, mention this
+				logger.log("A " + textPath + " fájl már létezik, felülírom.");
+			} else if (overwrite.equals(CommandLineArguments.OVERWRITE_NONE)){
+				//no overwrite
+				logger.log("A " + textPath + " fájl létezik, és a felülírás ki van kapcsolva, ezért kihagyom.");
+				skipped(ExtractionEvents.SKIP_EXISTS);
+				return false;
+			} else {
+				//csak a select overwrite mód maradt
+				logger.logUnmutable("A " + textPath + " már létezik. Felülírjam? (I/N)");
+				String input = scanner.nextLine();
+				if(input.equalsIgnoreCase("I")) {
+					logger.log("A felhasználó válasza IGEN, ezért felülírom.");
+				} else if(input.equalsIgnoreCase("N")) {
+					logger.log("A felhasználó válasza NEM, ezért kihagyom.");
+					skipped(ExtractionEvents.SKIP_DECLINED);
+					return false;
 				} else {
-					//csak a select overwrite mód maradt
-					logger.logUnmutable("A " + textPath + " már létezik. Felülírjam? (I/N)");
-					String input = scanner.nextLine();
-					if(input.equalsIgnoreCase("I")) {
-						logger.log("A felhasználó válasza IGEN, ezért felülírom.");
-					} else if(input.equalsIgnoreCase("N")) {
-						logger.log("A felhasználó válasza NEM, ezért kihagyom.");
-						return;
-					} else {
-						logger.log("A felhasználó válasza " + input + ", amit nem tudok értelmezni. A fájlt kihagyom.");
-						return;
-					}
+					logger.log("A felhasználó válasza " + input + ", amit nem tudok értelmezni. A fájlt kihagyom.");
+					skipped(ExtractionEvents.SKIP_DECLINED);
+					return false;
 				}
 			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Extracts the text from all pages of the PDF and counts the words in it. This is only 
+	 * CPU work, the PDF is already read.
+	 * <p>
+	 * In jsonl format there is one JSON record for every page (see {@link #appendPageRecord(StringBuilder, int, int, long, long, String)}),
+	 * which is written into the text file as soon as the page is extracted, so only one page is held in memory. The text file
+	 * is only replaced when {@link #writeText(String)} commits it. If there is a {@link #recordExecutor}, the records are
+	 * written there while the next page is extracted.
+	 * @param reader The opened PDF.
+	 * @return The text, pages are separated by line breaks. In jsonl format an empty string, the records are already written.
+	 * @throws IOException If the PDF content can't be parsed, or the records can't be written.
+	 */
+	String extractPages(PdfReader reader) throws IOException {
+		int pageCount = reader.getNumberOfPages();
+		logger.log("A " + path + " PDF " + pageCount + " oldalt tartalmaz.");
+		
+		for(ExtractionListener listener: listeners) {
+			documentListeners.add(listener.documentStarted(path, pageCount));
+		}
+		
+		final boolean jsonLines = format.equals(CommandLineArguments.FORMAT_JSONL);
+		final StringBuilder textBuilder = new StringBuilder(); //appends text from the pages, or the record of one page
+		if(jsonLines && output == null) openOutput();
+		final String separator = System.lineSeparator();
+		long words = 0;
+		long offset = 0; //where the page begins in the plain text
+		final boolean pageEvents = ExtractionEvents.isPageEventEnabled();
+		
+		for(int page = 1; page <= pageCount; page++) {
+			ExtractionEvents.PageExtracted pageEvent = null;
+			if(pageEvents) {
+				pageEvent = new ExtractionEvents.PageExtracted();
+				pageEvent.begin();
+			}
+			String textFromPage = PdfTextExtractor.getTextFromPage(reader, page);
+			if(pageEvent != null) {
+				pageEvent.end();
+				if(pageEvent.shouldCommit()) {
+					pageEvent.path = path;
+					pageEvent.page = page;
+					pageEvent.characters = textFromPage.length();
+					pageEvent.commit();
+				}
+			}
+			metrics.pageExtracted();
 			
-			//begin extraction
-			int pageCount = reader.getNumberOfPages();
-			logger.log("Ez a PDF " + pageCount + " oldalt tartalmaz.");
-			
-			final StringBuilder textBuilder = new StringBuilder(); //appends text from the pages
+			//count words of the page, pages are separated by line breaks so no word spans two pages
+			StringTokenizer tokenizer = new StringTokenizer(textFromPage);
+			long pageWords = 0;
+			if(documentListeners.isEmpty()) {
+				pageWords = tokenizer.countTokens();
+			} else {
+				for(DocumentListener listener: documentListeners) {
+					listener.pageExtracted(page, textFromPage);
+				}
+				while(tokenizer.hasMoreTokens()) {
+					String token = tokenizer.nextToken();
+					pageWords++;
+					for(DocumentListener listener: documentListeners) {
+						listener.token(page, token);
+					}
+				}
+			}
+			words += pageWords;
 			
-			for(int page = 1; page <= pageCount; page++) {
-				String textFromPage = PdfTextExtractor.getTextFromPage(reader, page);
+			if(jsonLines) {
+				textBuilder.setLength(0);
+				appendPageRecord(textBuilder, page, pageCount, offset, pageWords, textFromPage);
+				writeRecord(textBuilder);
+			} else {
 				textBuilder.append(textFromPage);
 				//append line break
-				if(page < pageCount) textBuilder.append(System.lineSeparator());
+				if(page < pageCount) textBuilder.append(separator);
 			}
-			
-			String pdfText = textBuilder.toString();
-			
-			//warning if it is empty
-			if(pdfText.isEmpty()) {
-				logger.logError("A " + path + " PDF-ből semmilyen szöveget nem sikerült kinyerni!");
+			offset += textFromPage.length() + (page < pageCount ? separator.length() : 0);
+		}
+		
+		//warning if it is empty
+		if(offset == 0) {
+			logger.logError("A " + path + " PDF-ből semmilyen szöveget nem sikerült kinyerni!");
+		}
+		
+		wordCount.addAndGet(words);
+		if(fileEvent != null) {
+			fileEvent.pages = pageCount;
+			fileEvent.words = words;
+		}
+		return jsonLines ? "" : textBuilder.toString();
+	}
+	
+	/**
+	 * Appends the JSON record of a page, followed by a line break.
+	 * Example: {@code {"page":1,"pageCount":3,"offset":0,"words":2,"text":"Hello world"}}
+	 * <p>
+	 * The offset does not point into the jsonl file. It is where the page begins in the text that the txt format would
+	 * write for the same PDF: the texts of the pages joined with the platform line separator. It is counted in UTF-16
+	 * chars (like {@link String#length()}), not in bytes or code points. The jsonl format never writes that text, so the offset
+	 * is only useful with a txt output of the same PDF, or after joining the "text" fields the same way.
+	 * @param builder Appended here.
+	 * @param page Number of the page.
+	 * @param pageCount Number of pages in the PDF.
+	 * @param offset Offset of the page in the txt text, in UTF-16 chars.
+	 * @param words Number of words on the page.
+	 * @param text Text of the page.
+	 */
+	private static void appendPageRecord(StringBuilder builder, int page, int pageCount, long offset, long words, String text) {
+		builder.append("{\"page\":").append(page)
+			.append(",\"pageCount\":").append(pageCount)
+			.append(",\"offset\":").append(offset)
+			.append(",\"words\":").append(words)
+			.append(",\"text\":\"");
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch(c) {
+			case '"': builder.append("\\\""); break;
+			case '\\': builder.append("\\\\"); break;
+			case '\n': builder.append("\\n"); break;
+			case '\r': builder.append("\\r"); break;
+			case '\t': builder.append("\\t"); break;
+			default:
+				if(c < 0x20) {
+					builder.append(String.format("\\u%04x", (int)c));
+				} else {
+					builder.append(c);
+				}
 			}
-			
-			//count words
-			StringTokenizer tokenizer = new StringTokenizer(pdfText);
-			wordCount += tokenizer.countTokens();
-			
-			//create and write file
-			if(textFile.exists()) {
-				textFile.delete();
+		}
+		builder.append("\"}\n");
+	}
+	
+	/**
+	 * Writes the extracted text into the text file at {@link #textPath} with the {@link TextFileWriter}, replacing it if it exists.
+	 * If the text file already has the same text and '-skipUnchanged' is enabled, it is not touched. In jsonl format the
+	 * records were already written by {@link #extractPages(PdfReader)}, this only commits them.
+	 * @param pdfText The extracted text, empty in jsonl format.
+	 * @throws IOException If the file can't be written.
+	 */
+	void writeText(String pdfText) throws IOException {
+		awaitRecord();
+		ExtractionEvents.BytesWritten event = ExtractionEvents.isRecording() ? new ExtractionEvents.BytesWritten() : null;
+		long bytes;
+		if(output != null) {
+			TextFileWriter.Output records = output;
+			output = null;
+			if(event != null) event.begin();
+			boolean changed = writer.commit(records, this::committed);
+			if(event != null) event.end();
+			if(!changed) {
+				unchanged();
+				return;
 			}
-			textFile.createNewFile();
-			writeStringIntoFile(textFile, pdfText);
-			
-			logger.log("Sikeres kinyerés a " + textPath + " fájlba.");
-		} catch (IOException e) {
-			//something failed
-			logger.logError("A " + path + " fájlból nem sikerült a kinyerés. A hiba oka:");
-			e.printStackTrace();
+			bytes = records.getBytes();
+		} else {
+			//txt is written with the platform encoding as before
+			Charset charset = Charset.defaultCharset();
+			Path textFile = new File(textPath).toPath();
+			String hash = writer.contentHash(pdfText, charset); //null if '-skipUnchanged' is not enabled
+			if(writer.isUnchanged(textFile, hash)) {
+				unchanged();
+				return;
+			}
+			if(event != null) event.begin();
+			bytes = writer.write(textFile, pdfText, charset, hash, this::committed);
+			if(event != null) event.end();
+		}
+		if(event != null && event.shouldCommit()) {
+			event.path = textPath;
+			event.bytes = bytes;
+			event.commit();
+		}
+	}
+	
+	private void unchanged() {
+		logger.log("A " + textPath + " fájl tartalma nem változott, nem írom újra.");
+		documentFinished(); //the text file has this text, so it counts as extracted
+		skipped(ExtractionEvents.SKIP_UNCHANGED);
+	}
+	
+	/**
+	 * Tells the listeners that the text of this PDF is complete and in the text file.
+	 */
+	private void documentFinished() {
+		for(DocumentListener listener: documentListeners) {
+			listener.documentFinished();
+		}
+		documentListeners.clear();
+	}
+	
+	/**
+	 * In jsonl format: opens the text file the records are written into. In '-execution=async-io' this is called on an I/O
+	 * thread before the pages are extracted, otherwise {@link #extractPages(PdfReader)} calls it.
+	 * @throws IOException If the temporary file can't be created.
+	 */
+	void openOutput() throws IOException {
+		if(!format.equals(CommandLineArguments.FORMAT_JSONL)) return;
+		//JSON is always UTF-8
+		output = writer.open(new File(textPath).toPath(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Sets the executor the records are written on in jsonl format. Only one record is handed over at a time: the next page
+	 * waits for the previous record, so a slow disk slows down the extraction instead of filling the memory with records.
+	 * @param executor The executor, null to write the records on the extracting thread.
+	 */
+	void setRecordExecutor(Executor executor) {
+		this.recordExecutor = executor;
+	}
+	
+	/**
+	 * Writes a record into the {@link #output}, on the {@link #recordExecutor} if there is one.
+	 * @param record The record, it can be changed after this returns.
+	 * @throws IOException If the previous record could not be written, or this one if there is no executor.
+	 */
+	private void writeRecord(CharSequence record) throws IOException {
+		if(recordExecutor == null) {
+			output.append(record);
+			return;
+		}
+		awaitRecord();
+		final TextFileWriter.Output target = output;
+		final String copy = record.toString();
+		recordWrite = CompletableFuture.runAsync(() -> {
+			try {
+				target.append(copy);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, recordExecutor);
+	}
+	
+	/**
+	 * Waits until the record handed to the {@link #recordExecutor} is written.
+	 * @throws IOException If it could not be written.
+	 */
+	private void awaitRecord() throws IOException {
+		if(recordWrite == null) return;
+		CompletableFuture<Void> write = recordWrite;
+		recordWrite = null;
+		try {
+			write.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof UncheckedIOException) throw ((UncheckedIOException)cause).getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			throw e;
+		}
+	}
+	
+	/**
+	 * Discards the records written in jsonl format, if they were not committed.
+	 */
+	private void discardOutput() {
+		if(recordWrite != null) {
+			recordWrite.handle((v, t) -> null).join(); //the output can't be discarded while a record is written into it
+			recordWrite = null;
+		}
+		if(output != null) {
+			output.discard();
+			output = null;
 		}
-		
 	}
 	
 	/**
-	 * Writes a string into the file.
-	 * @param file The file.
-	 * @param text The string.
+	 * Called by the {@link TextFileWriter} when the text file is in place. In group durability mode this happens later,
+	 * when the group of the file is committed.
+	 * @param failure Null if the text file was written, otherwise the reason why it could not be.
 	 */
-	private void writeStringIntoFile(final File file, String text) throws IOException {
-		try(FileWriter writer = new FileWriter(file)) {
-			writer.write(text);
-			writer.flush();
+	private void committed(IOException failure) {
+		if(failure != null) {
+			logFailure(failure);
+			return;
 		}
+		logger.log("Sikeres kinyerés a " + textPath + " fájlba.");
+		documentFinished();
+		finished(ExtractionEvents.OUTCOME_WRITTEN);
+	}
+	
+	/**
+	 * Reports that the extraction from this PDF failed.
+	 * @param e The cause.
+	 */
+	void logFailure(Throwable e) {
+		discardOutput();
+		documentListeners.clear(); //this PDF is not indexed, analyzed, etc.
+		logger.logError("A " + path + " fájlból nem sikerült a kinyerés. A hiba oka:");
+		e.printStackTrace();
+		finished(ExtractionEvents.OUTCOME_FAILED);
 	}
 	
 	/**
@@ -166,6 +562,38 @@ public class TextExtractor {
 	 * @return Word counter.
 	 */
 	public static long getWordCount() {
-		return wordCount;
+		return wordCount.get();
+	}
+	
+	/**
+	 * Registers a listener which will get the text of all PDF files extracted after this.
+	 * @param listener The listener.
+	 */
+	public static void addListener(ExtractionListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener registered with {@link #addListener(ExtractionListener)}.
+	 * @param listener The listener.
+	 */
+	public static void removeListener(ExtractionListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Sets the writer used by all extractors created after this.
+	 * @param textFileWriter The writer.
+	 */
+	public static void setWriter(TextFileWriter textFileWriter) {
+		writer = textFileWriter;
+	}
+	
+	public String getPath() {
+		return path;
+	}
+	
+	public String getTextPath() {
+		return textPath;
 	}
 }
@@ -0,0 +1,525 @@
+package com.gaspar.pdfextractor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the text files. The text is encoded into a large direct buffer and written with a {@link FileChannel} into a
+ * temporary file next to the text file, which is then renamed to the text file in one step. So the text file is never
+ * seen half written, and replacing it needs no separate delete and create.
+ * <p>
+ * The durability (when the data is forced to the disk with fsync) is set with the '-durability' argument:
+ * <ul>
+ * <li>{@link CommandLineArguments#DURABILITY_NONE}: no fsync, the operating system writes the data when it wants. This is the fastest,
+ * but the last text files may be lost if the machine crashes.</li>
+ * <li>{@link CommandLineArguments#DURABILITY_FILE}: every text file (and its folder, after the rename) is forced to the disk before
+ * the extraction continues.</li>
+ * <li>{@link CommandLineArguments#DURABILITY_GROUP}: the temporary files are collected, and forced and renamed together when there are
+ * enough of them, or the oldest one waits for long enough. A crash loses at most the last group, but the text files
+ * that are visible are complete.</li>
+ * </ul>
+ * A text file can also be written in parts, as they are produced: {@link #open(Path, Charset)} creates the temporary file,
+ * {@link Output#append(CharSequence)} writes the parts (only the direct buffer is held in memory), and
+ * {@link #commit(Output, Consumer)} puts the text file in place.
+ * <p>
+ * If the program is killed while writing, temporary files may be left next to the text files. They are deleted when
+ * the next run writes the first text file into the same folder.
+ * <p>
+ * The caller is told with a callback when the text file is in place, so in group mode a text file is only reported as
+ * written after its group was committed, and a failed commit is reported as a failure of that file.
+ * With the '-skipUnchanged' argument an existing text file is not rewritten if the new text is the same, so its modification
+ * time is kept (see {@link #isUnchanged(Path, String)} and {@link ContentHashes}).
+ * <p>
+ * This is thread safe, one object is shared by all extractors.
+ * @author Gáspár Tamás
+ */
+public class TextFileWriter {
+
+	/**
+	 * Size of the direct buffers the text is encoded into.
+	 */
+	static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Writer without fsync, used if no other writer is set.
+	 */
+	static final TextFileWriter DEFAULT = new TextFileWriter(CommandLineArguments.DURABILITY_NONE, 0, 0, false);
+
+	/**
+	 * Direct buffers which are not in use. Allocating direct buffers is slow, so they are reused.
+	 */
+	private static final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Makes the names of the temporary files unique.
+	 */
+	private static final AtomicLong tempCounter = new AtomicLong();
+
+	/**
+	 * Name of the temporary files: '.', the name of the text file, '.', a number and '.tmp'.
+	 */
+	private static final Pattern TEMP_NAME = Pattern.compile("\\..+\\.\\d+\\.tmp");
+
+	/**
+	 * Folders which were already cleaned from the temporary files of earlier runs, see {@link #removeStaleTempFiles(Path)}.
+	 */
+	private static final Map<Path, Boolean> cleanedFolders = new ConcurrentHashMap<>();
+
+	private final String durability;
+
+	/**
+	 * In group mode: the group is committed when it has this many files.
+	 */
+	private final int groupFiles;
+
+	/**
+	 * In group mode: the group is committed when its oldest file waits for this long.
+	 */
+	private final long groupMillis;
+
+	/**
+	 * If existing text files with the same content are kept. The hash of every written text file is stored.
+	 */
+	private final boolean skipUnchanged;
+
+	/**
+	 * In group mode: temporary files waiting for the commit.
+	 */
+	private final List<Output> pending = new ArrayList<>();
+
+	/**
+	 * When the oldest file of {@link #pending} was added.
+	 */
+	private long pendingSince;
+
+	/**
+	 * In group mode: commits the group if it waits for too long.
+	 */
+	private final ScheduledExecutorService timer;
+
+	/**
+	 * Creates a writer.
+	 * @param durability One of the durability values in {@link CommandLineArguments}.
+	 * @param groupFiles In group mode the number of files in a group.
+	 * @param groupMillis In group mode the longest time a file may wait for the commit.
+	 * @param skipUnchanged If existing text files with the same content are kept.
+	 */
+	public TextFileWriter(String durability, int groupFiles, long groupMillis, boolean skipUnchanged) {
+		this.durability = durability;
+		this.groupFiles = groupFiles;
+		this.groupMillis = groupMillis;
+		this.skipUnchanged = skipUnchanged;
+		if(durability.equals(CommandLineArguments.DURABILITY_GROUP)) {
+			timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "text-file-group-commit");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long period = Math.max(1, groupMillis / 2);
+			timer.scheduleWithFixedDelay(this::commitIfOld, period, period, TimeUnit.MILLISECONDS);
+		} else {
+			timer = null;
+		}
+	}
+
+	/**
+	 * Hashes the text as it would be written, without writing it anywhere, if '-skipUnchanged' is enabled.
+	 * @param text The new text.
+	 * @param charset Encoding of the text.
+	 * @return The hash for {@link #isUnchanged(Path, String)} and {@link #write(Path, String, Charset, String, Consumer)}, or
+	 * null if '-skipUnchanged' is not enabled.
+	 */
+	public String contentHash(String text, Charset charset) {
+		return skipUnchanged ? ContentHashes.hash(text, charset) : null;
+	}
+
+	/**
+	 * Checks if the text file already has this content. The hash is compared with the hash of the existing file, which is only
+	 * read if it has no stored hash (or the file was changed since).
+	 * @param file The text file.
+	 * @param hash Hash of the new text, from {@link #contentHash(String, Charset)}.
+	 * @return True if the hash is not null and the file exists with the same content, then it does not have to be written.
+	 * @throws IOException If the existing file can't be read.
+	 */
+	public boolean isUnchanged(Path file, String hash) throws IOException {
+		if(hash == null || !Files.isRegularFile(file)) return false;
+		return hash.equals(ContentHashes.currentHash(file));
+	}
+
+	/**
+	 * Writes the text into a file, replacing it if it exists. In group mode the file only appears when its group is committed.
+	 * The text is written even if it is unchanged, use {@link #isUnchanged(Path, String)} before this.
+	 * @param file The text file.
+	 * @param text The text.
+	 * @param charset Encoding of the text. Characters which can't be encoded are replaced, like {@link java.io.FileWriter} does.
+	 * @param committed Called with null when the text file is in place, or with the exception if a group commit failed. In
+	 * group mode this is called later, from the thread that commits the group. If this method throws, it is not called.
+	 * @return Number of bytes written.
+	 * @throws IOException If the file can't be written.
+	 */
+	public long write(Path file, String text, Charset charset, Consumer<IOException> committed) throws IOException {
+		return write(file, text, charset, null, committed);
+	}
+
+	/**
+	 * Writes the text into a file like {@link #write(Path, String, Charset, Consumer)}, with its hash already known.
+	 * @param hash Hash of the text from {@link #contentHash(String, Charset)}, it is stored instead of hashing the text again
+	 * while it is written. If null, the text is hashed while it is written (if '-skipUnchanged' is enabled).
+	 */
+	public long write(Path file, String text, Charset charset, String hash, Consumer<IOException> committed) throws IOException {
+		Output output = open(file, charset, hash);
+		try {
+			output.append(text);
+		} catch (IOException | RuntimeException e) {
+			output.discard();
+			throw e;
+		}
+		commit(output, committed, false);
+		return output.bytes;
+	}
+
+	/**
+	 * Starts writing a text file in parts. The text file is not changed until {@link #commit(Output, Consumer)}.
+	 * @param file The text file.
+	 * @param charset Encoding of the text. Characters which can't be encoded are replaced.
+	 * @return The output, which must be committed or discarded.
+	 * @throws IOException If the temporary file can't be created.
+	 */
+	public Output open(Path file, Charset charset) throws IOException {
+		return open(file, charset, null);
+	}
+
+	/**
+	 * @param hash Hash of the whole content if it is already known, otherwise null.
+	 */
+	private Output open(Path file, Charset charset, String hash) throws IOException {
+		Path folder = file.toAbsolutePath().getParent();
+		if(!cleanedFolders.containsKey(folder)) removeStaleTempFiles(folder);
+		return new Output(file, charset, skipUnchanged ? hash : null, skipUnchanged && hash == null);
+	}
+
+	/**
+	 * Deletes the temporary files left in a folder by an earlier run that was killed. This is done only once in every folder,
+	 * before the first temporary file of this run is created there, so the files of this run are never deleted. (Another
+	 * instance writing into the same folder at the same time is not supported: it would also replace the same text files.)
+	 * @param folder The folder of a text file.
+	 */
+	private static void removeStaleTempFiles(Path folder) {
+		cleanedFolders.computeIfAbsent(folder, f -> {
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(f, path -> TEMP_NAME.matcher(path.getFileName().toString()).matches())) {
+				for(Path stale: files) {
+					Files.deleteIfExists(stale);
+				}
+			} catch (IOException | DirectoryIteratorException e) {
+				//they are only left there, creating the new temporary file will show if the folder is unusable
+			}
+			return true;
+		});
+	}
+
+	/**
+	 * Replaces the text file with the written parts. In group mode the file only appears when its group is committed.
+	 * If '-skipUnchanged' is enabled and the existing text file has the same content, it is kept, and the written parts are discarded.
+	 * @param output The output created with {@link #open(Path, Charset)}.
+	 * @param committed Called like in {@link #write(Path, String, Charset, Consumer)}. Not called if the text file was unchanged.
+	 * @return False if the text file was unchanged and kept.
+	 * @throws IOException If the file can't be written. The output is discarded.
+	 */
+	public boolean commit(Output output, Consumer<IOException> committed) throws IOException {
+		return commit(output, committed, true);
+	}
+
+	/**
+	 * Finishes the output and puts the text file in place, or adds it to the group.
+	 * @param checkUnchanged If the existing text file is compared with the output.
+	 */
+	private boolean commit(Output output, Consumer<IOException> committed, boolean checkUnchanged) throws IOException {
+		Path file = output.file;
+		try {
+			output.finish();
+			if(checkUnchanged && output.hash != null && Files.isRegularFile(file) && output.hash.equals(ContentHashes.currentHash(file))) {
+				output.discard();
+				return false;
+			}
+			if(durability.equals(CommandLineArguments.DURABILITY_GROUP)) {
+				//the channel stays open until the group is forced, so the file is not opened again for that
+				output.committed = committed;
+				addToGroup(output);
+				return true;
+			}
+			output.close(durability.equals(CommandLineArguments.DURABILITY_FILE));
+			rename(output.temp, file);
+		} catch (IOException | RuntimeException e) {
+			output.discard();
+			throw e;
+		}
+		if(output.hash != null) ContentHashes.store(file, output.hash);
+		if(durability.equals(CommandLineArguments.DURABILITY_FILE)) {
+			forceFolder(file.toAbsolutePath().getParent());
+		}
+		committed.accept(null);
+		return true;
+	}
+
+	private static void rename(Path temp, Path file) throws IOException {
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Forces a folder to the disk, so that the renames in it survive a crash. This is not supported on every
+	 * operating system (for example Windows), there it is skipped.
+	 */
+	private static void forceFolder(Path folder) {
+		try(FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			//folders can't be opened on this system
+		}
+	}
+
+	private void addToGroup(Output output) {
+		boolean full;
+		synchronized (pending) {
+			if(pending.isEmpty()) pendingSince = System.currentTimeMillis();
+			pending.add(output);
+			full = pending.size() >= groupFiles;
+		}
+		if(full) commit();
+	}
+
+	private void commitIfOld() {
+		boolean old;
+		synchronized (pending) {
+			old = !pending.isEmpty() && System.currentTimeMillis() - pendingSince >= groupMillis;
+		}
+		if(old) commit();
+	}
+
+	/**
+	 * Forces the temporary files of the group to the disk, renames them, and forces their folders. Groups are committed
+	 * one at a time, in the order they were collected.
+	 */
+	private synchronized void commit() {
+		List<Output> group;
+		synchronized (pending) {
+			if(pending.isEmpty()) return;
+			group = new ArrayList<>(pending);
+			pending.clear();
+		}
+		List<Output> forced = new ArrayList<>(group.size());
+		for(Output output: group) {
+			try {
+				output.close(true);
+				forced.add(output);
+			} catch (IOException e) {
+				output.discard();
+				output.committed.accept(e);
+			}
+		}
+		List<Output> renamed = new ArrayList<>(forced.size());
+		Set<Path> folders = new LinkedHashSet<>();
+		for(Output output: forced) {
+			try {
+				rename(output.temp, output.file);
+				if(output.hash != null) ContentHashes.store(output.file, output.hash);
+				folders.add(output.file.toAbsolutePath().getParent());
+				renamed.add(output);
+			} catch (IOException e) {
+				output.discard();
+				output.committed.accept(e);
+			}
+		}
+		for(Path folder: folders) {
+			forceFolder(folder);
+		}
+		for(Output output: renamed) {
+			output.committed.accept(null);
+		}
+	}
+
+	/**
+	 * Commits the remaining files of the group and stops the timer. In other modes this does nothing.
+	 */
+	public void close() {
+		if(timer != null) {
+			timer.shutdownNow();
+			commit();
+		}
+	}
+
+	/**
+	 * A text file being written: the temporary file, which is opened once and written through the same channel, and the
+	 * encoder state. In group mode it waits in {@link #pending} after it is finished, with the channel still open until the
+	 * group is forced (so at most a group's worth of files are open at once). Created with {@link TextFileWriter#open(Path, Charset)},
+	 * an output is used by one thread at a time.
+	 */
+	public static final class Output {
+
+		private final Path temp;
+
+		/**
+		 * The text file the temporary file will be renamed to.
+		 */
+		private final Path file;
+
+		private final FileChannel channel;
+
+		private final CharsetEncoder encoder;
+
+		/**
+		 * Pooled direct buffer, returned to {@link #buffers} when the output is finished or discarded.
+		 */
+		private ByteBuffer buffer;
+
+		/**
+		 * Hashes the written bytes if '-skipUnchanged' is enabled, otherwise null.
+		 */
+		private final MessageDigest digest;
+
+		/**
+		 * Number of bytes written.
+		 */
+		private long bytes;
+
+		/**
+		 * Hash of the content, stored after the rename. Null if '-skipUnchanged' is not enabled.
+		 */
+		private String hash;
+
+		/**
+		 * In group mode: called when the group was committed.
+		 */
+		private Consumer<IOException> committed;
+
+		/**
+		 * Creates the temporary file in the folder of the text file, with CREATE_NEW so an existing file is never
+		 * overwritten. Its permissions are the same as a new text file would have.
+		 */
+		private Output(Path file, Charset charset, String hash, boolean hashed) throws IOException {
+			this.file = file;
+			FileChannel opened;
+			Path tempPath;
+			while(true) {
+				tempPath = file.resolveSibling("." + file.getFileName() + "." + tempCounter.incrementAndGet() + ".tmp");
+				try {
+					opened = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+					break;
+				} catch (FileAlreadyExistsException e) {
+					//left there by an earlier run, try the next name
+				}
+			}
+			this.temp = tempPath;
+			this.channel = opened;
+			this.encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.hash = hash;
+			this.digest = hashed ? ContentHashes.newDigest() : null;
+			ByteBuffer pooled = buffers.poll();
+			this.buffer = pooled == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : pooled;
+		}
+
+		/**
+		 * Encodes a part of the text into the direct buffer, and writes the buffer whenever it is full.
+		 * @param text The part, it must not end in the middle of a surrogate pair.
+		 * @throws IOException If the temporary file can't be written.
+		 */
+		public void append(CharSequence text) throws IOException {
+			CharBuffer chars = CharBuffer.wrap(text);
+			//overflow means the buffer is full, it is written and the encoding continues
+			while(encoder.encode(chars, buffer, true).isOverflow()) {
+				writeBuffer();
+			}
+			while(encoder.flush(buffer).isOverflow()) {
+				writeBuffer();
+			}
+			encoder.reset(); //every text is complete, the next one starts a new input
+		}
+
+		/**
+		 * Number of bytes written so far.
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Writes the rest of the buffer, and computes the hash.
+		 */
+		private void finish() throws IOException {
+			writeBuffer();
+			releaseBuffer();
+			if(digest != null) hash = ContentHashes.toHex(digest.digest());
+		}
+
+		/**
+		 * Closes the temporary file.
+		 * @param force If the file is forced to the disk before closing it.
+		 */
+		private void close(boolean force) throws IOException {
+			if(force) channel.force(true);
+			channel.close();
+		}
+
+		private void writeBuffer() throws IOException {
+			buffer.flip();
+			if(digest != null) digest.update(buffer.duplicate());
+			while(buffer.hasRemaining()) {
+				bytes += channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private void releaseBuffer() {
+			if(buffer != null) {
+				buffer.clear();
+				buffers.offer(buffer);
+				buffer = null;
+			}
+		}
+
+		/**
+		 * Closes and deletes the temporary file, the text file is not changed. Can be called more than once.
+		 */
+		public void discard() {
+			releaseBuffer();
+			try {
+				channel.close();
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				//nothing else to do
+			}
+		}
+	}
+}
@@ -0,0 +1,374 @@
+package com.gaspar.pdfextractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Computes cheap statistics about the quality of the extracted text of every PDF, while the pages are extracted. This is
+ * enabled with the '-quality' argument. The statistics are:
+ * <ul>
+ * <li>printable ratio: ratio of the non-whitespace characters which are not control, private use, unassigned or replacement
+ * characters. Broken ToUnicode maps often produce such characters.</li>
+ * <li>replacement rate: ratio of the U+FFFD replacement characters.</li>
+ * <li>mojibake rate: ratio of the 'Ã' and 'Â' characters followed by a Latin-1 supplement character, which is typical for
+ * UTF-8 text decoded as Latin-1.</li>
+ * <li>language guess: the script for non-Latin text. For Latin text, the character trigrams of the first
+ * {@link #LANGUAGE_SAMPLE_SIZE} letters are ranked by frequency, and compared to the ranked trigrams of some languages with the
+ * out-of-place distance (Cavnar and Trenkle). The profiles of the languages are built from the short sample texts in the
+ * 'languages' resource folder, no dictionary is needed. The closest language is only reported if it is clearly closer than
+ * the second one.</li>
+ * </ul>
+ * PDF files with a bad score (or without any text, which is typical for scanned PDF files) are flagged, these should be
+ * processed with OCR.
+ * @author Gáspár Tamás
+ */
+public class TextQualityAnalyzer implements ExtractionListener {
+
+	/**
+	 * Below this printable ratio the PDF is flagged.
+	 */
+	static final double MIN_PRINTABLE_RATIO = 0.95;
+
+	/**
+	 * Above this replacement rate the PDF is flagged.
+	 */
+	static final double MAX_REPLACEMENT_RATE = 0.005;
+
+	/**
+	 * Above this mojibake rate the PDF is flagged.
+	 */
+	static final double MAX_MOJIBAKE_RATE = 0.01;
+
+	/**
+	 * Number of letters used to guess the language.
+	 */
+	static final int LANGUAGE_SAMPLE_SIZE = 10_000;
+
+	/**
+	 * Number of the most frequent trigrams compared, both for the languages and the PDF files.
+	 */
+	static final int PROFILE_SIZE = 300;
+
+	/**
+	 * The language is only guessed if its distance (0: same ranking, 1: no common trigram) is below this.
+	 */
+	static final double MAX_LANGUAGE_DISTANCE = 0.9;
+
+	/**
+	 * The language is only guessed if the distance of the second closest language is larger by at least this much.
+	 */
+	static final double MIN_LANGUAGE_MARGIN = 0.02;
+
+	static final String UNKNOWN_LANGUAGE = "?";
+
+	/**
+	 * Languages which can be recognized, there is a sample text for each in the 'languages' resource folder.
+	 */
+	private static final String[] LANGUAGES = { "hu", "en", "de", "fr", "es" };
+
+	/**
+	 * Rank of the trigrams of the {@link #LANGUAGES}, in the same order, built from the sample texts.
+	 */
+	private static final List<Map<String, Integer>> LANGUAGE_PROFILES = new ArrayList<>();
+
+	static {
+		for(String language: LANGUAGES) {
+			String resource = "/languages/" + language + ".txt";
+			try(InputStream in = TextQualityAnalyzer.class.getResourceAsStream(resource)) {
+				if(in == null) throw new IllegalStateException("Missing resource: " + resource);
+				String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+				LANGUAGE_PROFILES.add(ranks(profile(languageSample(text))));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the language sample of a text: the letters in lower case, every sequence of other characters is replaced by one space.
+	 */
+	static String languageSample(String text) {
+		StringBuilder sample = new StringBuilder(text.length());
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(Character.isLetter(c)) {
+				sample.append(Character.toLowerCase(c));
+			} else if(sample.length() > 0 && sample.charAt(sample.length() - 1) != ' ') {
+				sample.append(' ');
+			}
+		}
+		return sample.toString();
+	}
+
+	/**
+	 * The {@link #PROFILE_SIZE} most frequent trigrams of a language sample, the most frequent first. Space stands for word
+	 * boundary. Trigrams with the same frequency are in alphabetical order, so the profile does not depend on hashing.
+	 */
+	static List<String> profile(String sample) {
+		String padded = " " + sample.trim() + " ";
+		Map<String, Integer> counts = new HashMap<>();
+		for(int i = 0; i + 3 <= padded.length(); i++) {
+			String trigram = padded.substring(i, i + 3);
+			if(trigram.equals("   ") || trigram.charAt(1) == ' ') continue; //no letter in the middle: not inside a word
+			counts.merge(trigram, 1, Integer::sum);
+		}
+		List<String> trigrams = new ArrayList<>(counts.keySet());
+		trigrams.sort(Comparator.comparing((String t) -> counts.get(t)).reversed().thenComparing(Comparator.naturalOrder()));
+		return trigrams.subList(0, Math.min(PROFILE_SIZE, trigrams.size()));
+	}
+
+	private static Map<String, Integer> ranks(List<String> profile) {
+		Map<String, Integer> ranks = new HashMap<>();
+		for(int rank = 0; rank < profile.size(); rank++) {
+			ranks.put(profile.get(rank), rank);
+		}
+		return ranks;
+	}
+
+	/**
+	 * The out-of-place distance of a profile from a language: for every trigram the difference of its ranks, or the
+	 * {@link #PROFILE_SIZE} if the language does not have it.
+	 * @return The distance, between 0 (same ranking) and 1 (no common trigram).
+	 */
+	static double distance(List<String> profile, Map<String, Integer> languageRanks) {
+		if(profile.isEmpty()) return 1;
+		long distance = 0;
+		for(int rank = 0; rank < profile.size(); rank++) {
+			Integer languageRank = languageRanks.get(profile.get(rank));
+			distance += languageRank == null ? PROFILE_SIZE : Math.min(PROFILE_SIZE, Math.abs(rank - languageRank));
+		}
+		return (double)distance / ((long)profile.size() * PROFILE_SIZE);
+	}
+
+	/**
+	 * Guesses the language of Latin text.
+	 * @param sample The language sample, see {@link #languageSample(String)}.
+	 * @return The language code, or {@link #UNKNOWN_LANGUAGE} if no language is close, or two languages are close.
+	 */
+	static String guessLatinLanguage(String sample) {
+		List<String> profile = profile(sample);
+		int best = -1;
+		double bestDistance = Double.MAX_VALUE, secondDistance = Double.MAX_VALUE;
+		for(int language = 0; language < LANGUAGES.length; language++) {
+			double distance = distance(profile, LANGUAGE_PROFILES.get(language));
+			if(distance < bestDistance) {
+				secondDistance = bestDistance;
+				bestDistance = distance;
+				best = language;
+			} else if(distance < secondDistance) {
+				secondDistance = distance;
+			}
+		}
+		if(bestDistance > MAX_LANGUAGE_DISTANCE || secondDistance - bestDistance < MIN_LANGUAGE_MARGIN) return UNKNOWN_LANGUAGE;
+		return LANGUAGES[best];
+	}
+
+	/**
+	 * Results of the analyzed PDF files.
+	 */
+	private final List<Result> results = new ArrayList<>();
+
+	/**
+	 * Quality statistics of one PDF.
+	 */
+	public static final class Result {
+
+		private final String path;
+
+		/**
+		 * Number of non-whitespace characters.
+		 */
+		private final long characters;
+
+		private final double printableRatio;
+
+		private final double replacementRate;
+
+		private final double mojibakeRate;
+
+		private final String language;
+
+		private Result(String path, long characters, double printableRatio, double replacementRate, double mojibakeRate, String language) {
+			this.path = path;
+			this.characters = characters;
+			this.printableRatio = printableRatio;
+			this.replacementRate = replacementRate;
+			this.mojibakeRate = mojibakeRate;
+			this.language = language;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public long getCharacters() {
+			return characters;
+		}
+
+		public double getPrintableRatio() {
+			return printableRatio;
+		}
+
+		public double getReplacementRate() {
+			return replacementRate;
+		}
+
+		public double getMojibakeRate() {
+			return mojibakeRate;
+		}
+
+		/**
+		 * The guessed language code (for example 'hu'), the script for non-Latin text (for example 'cyrillic'),
+		 * or {@link TextQualityAnalyzer#UNKNOWN_LANGUAGE}.
+		 */
+		public String getLanguage() {
+			return language;
+		}
+
+		/**
+		 * Checks if the extraction is probably bad, and the PDF should be processed with OCR.
+		 * @return The reason, or null if the text seems to be fine.
+		 */
+		public String getFlagReason() {
+			if(characters == 0) return "nincs szöveg";
+			if(printableRatio < MIN_PRINTABLE_RATIO) return "sok nem nyomtatható karakter";
+			if(replacementRate > MAX_REPLACEMENT_RATE) return "sok helyettesítő karakter";
+			if(mojibakeRate > MAX_MOJIBAKE_RATE) return "hibás karakterkódolás (mojibake)";
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%s: %d karakter, nyomtatható: %.3f, helyettesítő: %.4f, mojibake: %.4f, nyelv: %s",
+					path, characters, printableRatio, replacementRate, mojibakeRate, language);
+		}
+	}
+
+	@Override
+	public DocumentListener documentStarted(String path, int pageCount) {
+		return new Statistics(path);
+	}
+
+	/**
+	 * Collects the statistics of one PDF, page by page.
+	 */
+	private final class Statistics implements DocumentListener {
+
+		private final String path;
+
+		private long characters, unprintable, replacements, mojibake;
+
+		/**
+		 * Letters of the language sample, lower case, other characters are replaced by one space.
+		 */
+		private final StringBuilder sample = new StringBuilder();
+
+		private int sampleLetters;
+
+		/**
+		 * Letters counted by script, for non-Latin text.
+		 */
+		private final Map<Character.UnicodeScript, Integer> scripts = new HashMap<>();
+
+		private char previous;
+
+		private Statistics(String path) {
+			this.path = path;
+		}
+
+		@Override
+		public void pageExtracted(int pageNumber, String text) {
+			for(int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if(Character.isWhitespace(c)) {
+					appendSampleBoundary();
+					previous = c;
+					continue;
+				}
+				characters++;
+				if(c == '\uFFFD') {
+					replacements++;
+					unprintable++;
+				} else if(isUnprintable(c)) {
+					unprintable++;
+				}
+				if((previous == '\u00C3' || previous == '\u00C2') && c >= '\u0080' && c <= '\u00BF') {
+					mojibake++;
+				}
+				if(Character.isLetter(c)) {
+					if(sampleLetters < LANGUAGE_SAMPLE_SIZE) {
+						sample.append(Character.toLowerCase(c));
+						sampleLetters++;
+						scripts.merge(Character.UnicodeScript.of(c), 1, Integer::sum);
+					}
+				} else {
+					appendSampleBoundary();
+				}
+				previous = c;
+			}
+			appendSampleBoundary(); //pages are separated
+		}
+
+		private void appendSampleBoundary() {
+			if(sampleLetters < LANGUAGE_SAMPLE_SIZE && sample.length() > 0 && sample.charAt(sample.length() - 1) != ' ') {
+				sample.append(' ');
+			}
+		}
+
+		@Override
+		public void documentFinished() {
+			double total = Math.max(1, characters);
+			Result result = new Result(path, characters, 1 - unprintable / total, replacements / total, mojibake / total, guessLanguage());
+			synchronized (TextQualityAnalyzer.this) {
+				results.add(result);
+			}
+		}
+
+		private String guessLanguage() {
+			if(sampleLetters == 0) return UNKNOWN_LANGUAGE;
+			//the script with the most letters
+			Character.UnicodeScript mainScript = null;
+			int mainCount = 0;
+			for(Map.Entry<Character.UnicodeScript, Integer> entry: scripts.entrySet()) {
+				if(entry.getValue() > mainCount) {
+					mainScript = entry.getKey();
+					mainCount = entry.getValue();
+				}
+			}
+			if(mainScript != null && mainScript != Character.UnicodeScript.LATIN) {
+				return mainScript.name().toLowerCase(Locale.ROOT);
+			}
+			return guessLatinLanguage(sample.toString());
+		}
+	}
+
+	/**
+	 * Checks if a non-whitespace character is unlikely to be in correctly extracted text.
+	 */
+	private static boolean isUnprintable(char c) {
+		switch(Character.getType(c)) {
+		case Character.CONTROL:
+		case Character.PRIVATE_USE:
+		case Character.UNASSIGNED:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the results of the analyzed PDF files.
+	 * @return The results, in the order of extraction.
+	 */
+	public synchronized List<Result> getResults() {
+		return new ArrayList<>(results);
+	}
+}
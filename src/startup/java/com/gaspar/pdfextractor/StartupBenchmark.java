@@ -0,0 +1,88 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the startup time of the 'startup' Maven profile. The app is started several times on the same PDF files, once
+ * with the normal JDK and the fat JAR, and once with the jlink runtime image and the class data sharing archive. This is
+ * not a test: it asserts nothing, it only prints every run and the spread (minimum, median, maximum) of both variants,
+ * because on a busy machine a single run or a single median is mostly noise. It is compiled and run only by the profile,
+ * in the 'verify' phase:
+ * <pre>{@code
+ * mvn -Pstartup verify -Dstartup.benchmark.runs=15
+ * }</pre>
+ * The two variants are run alternately, so that a slower period of the machine affects both of them.
+ * <p>
+ * Arguments: the java executable of the JDK, the runtime image folder, the PDF folder (relative) and the number of runs.
+ * @author Gáspár Tamás
+ */
+public class StartupBenchmark {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String jdkJava = args[0];
+		File runtime = new File(args[1]);
+		String folder = args[2];
+		int runs = Integer.parseInt(args[3]);
+		String jar = new File(runtime, "lib/app/PdfTextExtractor.jar").getAbsolutePath();
+		String archive = new File(runtime, "lib/app/app-cds.jsa").getAbsolutePath();
+		String runtimeJava = new File(runtime, "bin/java").getAbsolutePath();
+
+		List<String> appArguments = Arrays.asList("-mode=all", "-folder=" + folder, "-overwrite=all", "-mute");
+		List<String> baseline = new ArrayList<>(Arrays.asList(jdkJava, "-jar", jar));
+		baseline.addAll(appArguments);
+		List<String> optimized = new ArrayList<>(Arrays.asList(runtimeJava, "-XX:SharedArchiveFile=" + archive, "-Xshare:on", "-jar", jar));
+		optimized.addAll(appArguments);
+
+		//one warm-up run of both, so that the files are in the OS cache
+		run(baseline);
+		run(optimized);
+		long[] baselineTimes = new long[runs];
+		long[] optimizedTimes = new long[runs];
+		for(int i = 0; i < runs; i++) {
+			baselineTimes[i] = measure(baseline);
+			optimizedTimes[i] = measure(optimized);
+		}
+		System.out.println("Indulási idő mérése, " + runs + " futás (ezredmásodperc):");
+		System.out.println("    JDK, fat JAR:                    " + describe(baselineTimes));
+		System.out.println("    jlink image + AppCDS archívum:   " + describe(optimizedTimes));
+		long baselineMedian = median(baselineTimes);
+		System.out.println("    A mediánok különbsége: " + Math.round(100.0 * (baselineMedian - median(optimizedTimes)) / baselineMedian)
+				+ "% (ha a két tartomány átfed, a különbség nem biztos)");
+	}
+
+	/**
+	 * @return The wall clock time of one run in milliseconds.
+	 */
+	private static long measure(List<String> command) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		run(command);
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	/**
+	 * @return The runs in order, then the minimum, median and maximum.
+	 */
+	private static String describe(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return Arrays.toString(times) + "  min " + sorted[0] + ", medián " + median(times) + ", max " + sorted[sorted.length - 1];
+	}
+
+	private static long median(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static void run(List<String> command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		int exitCode = process.waitFor();
+		if(exitCode != 0) {
+			throw new IllegalStateException("A parancs hibával állt le (" + exitCode + "): " + command);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.gaspar.pdfextractor;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the decisions of the {@link ConcurrencyController.Policy}, with made up measurements.
+ * @author Gáspár Tamás
+ */
+public class ConcurrencyControllerTest extends TestCase {
+
+	private static final long INTERVAL = ConcurrencyController.SAMPLE_INTERVAL_MS * 1_000_000;
+
+	private static final double LOW = 0.3, HIGH = 0.9;
+
+	public void testStaleHighReadingHalvesOnlyOnce() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 16, 64);
+		assertNotNull(policy.sample(INTERVAL, 100, HIGH, true));
+		assertEquals(8, policy.getLimit());
+		for(int i = 0; i < 3 * ConcurrencyController.COOLDOWN_SAMPLES; i++) {
+			policy.sample(INTERVAL, 100, HIGH, false);
+		}
+		assertEquals(8, policy.getLimit());
+	}
+
+	public void testHeapDecreaseWaitsForCooldown() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 16, 64);
+		policy.sample(INTERVAL, 100, HIGH, true);
+		assertEquals(8, policy.getLimit());
+		//a new high reading right after the decrease is acted on only when the cooldown is over
+		policy.sample(INTERVAL, 100, HIGH, true);
+		assertEquals(8, policy.getLimit());
+		for(int i = 1; i < ConcurrencyController.COOLDOWN_SAMPLES; i++) {
+			policy.sample(INTERVAL, 100, HIGH, false);
+		}
+		assertEquals(4, policy.getLimit());
+	}
+
+	public void testMemoryNotificationRespectsCooldown() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 16, 64);
+		assertNotNull(policy.memoryExhausted("Old Gen"));
+		assertNull(policy.memoryExhausted("Old Gen"));
+		assertEquals(8, policy.getLimit());
+	}
+
+	public void testLimitNeverGoesBelowMinimum() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(3, 4, 64);
+		for(int i = 0; i < 10 * ConcurrencyController.COOLDOWN_SAMPLES; i++) {
+			policy.sample(INTERVAL, 100, HIGH, true);
+		}
+		assertEquals(3, policy.getLimit());
+	}
+
+	public void testIncreasesWhenSaturatedWithLowHeap() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 8, 64);
+		policy.limitReached();
+		assertNotNull(policy.sample(INTERVAL, 100, LOW, true));
+		assertEquals(10, policy.getLimit());
+		//not saturated: no change
+		assertNull(policy.sample(INTERVAL, 100, LOW, false));
+		assertEquals(10, policy.getLimit());
+	}
+
+	public void testRampsUpAgainWhenHighReadingExpires() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 16, 64);
+		policy.sample(INTERVAL, 100, HIGH, true);
+		assertEquals(8, policy.getLimit());
+		int samples = 0;
+		while(policy.getLimit() == 8 && samples < 2 * ConcurrencyController.HEAP_READING_SAMPLES) {
+			policy.limitReached();
+			policy.sample(INTERVAL, 100, HIGH, false);
+			samples++;
+		}
+		assertEquals(ConcurrencyController.HEAP_READING_SAMPLES, samples);
+		assertEquals(12, policy.getLimit());
+	}
+
+	public void testFreshLowReadingAllowsIncreaseAfterCooldown() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 16, 64);
+		policy.sample(INTERVAL, 100, HIGH, true);
+		for(int i = 0; i < ConcurrencyController.COOLDOWN_SAMPLES; i++) {
+			policy.limitReached();
+			policy.sample(INTERVAL, 100, LOW, i == 0);
+		}
+		assertEquals(12, policy.getLimit());
+	}
+
+	public void testIncreaseIsUndoneWhenThroughputDrops() {
+		ConcurrencyController.Policy policy = new ConcurrencyController.Policy(1, 8, 64);
+		policy.limitReached();
+		policy.sample(INTERVAL, 100, LOW, true);
+		assertEquals(10, policy.getLimit());
+		assertNotNull(policy.sample(INTERVAL, 20, LOW, false));
+		assertEquals(8, policy.getLimit());
+	}
+}
@@ -0,0 +1,80 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that every execution mode lists the same PDF files and writes byte-identical output files for the {@link TestCorpus}.
+ * @author Gáspár Tamás
+ */
+public class ExecutionModeTest extends TestCase {
+
+	public void testTextOutputIsIdentical() throws Exception {
+		assertIdenticalOutputs(CommandLineArguments.FORMAT_TXT);
+	}
+
+	public void testJsonLinesOutputIsIdentical() throws Exception {
+		assertIdenticalOutputs(CommandLineArguments.FORMAT_JSONL);
+	}
+
+	public void testListingIsIdentical() throws Exception {
+		File corpus = TestCorpus.emptyFolder("listing");
+		TestCorpus.generate(corpus);
+		List<File> sequential = new ArrayList<>(TestCorpus.listPdfFiles(corpus));
+		sequential.sort(null);
+		AsyncIoExtractor extractor = new AsyncIoExtractor(TestCorpus.mutedLogger());
+		try {
+			List<File> asyncIo = extractor.listPdfFiles(corpus, true);
+			asyncIo.sort(null);
+			assertEquals(sequential, asyncIo);
+			assertEquals(14, asyncIo.size());
+		} finally {
+			extractor.shutdown();
+		}
+	}
+
+	/**
+	 * A link to a parent folder must not make the recursive listing endless.
+	 */
+	public void testListingDoesNotFollowFolderLinks() throws Exception {
+		File corpus = TestCorpus.emptyFolder("listing-links");
+		TestCorpus.generate(corpus);
+		File subfolder = new File(corpus, "loop");
+		subfolder.mkdirs();
+		Files.createSymbolicLink(new File(subfolder, "parent").toPath(), corpus.getAbsoluteFile().toPath());
+		AsyncIoExtractor extractor = new AsyncIoExtractor(TestCorpus.mutedLogger());
+		try {
+			List<File> asyncIo = extractor.listPdfFiles(corpus, true);
+			assertEquals(14, asyncIo.size());
+			assertEquals(14, TestCorpus.listPdfFiles(corpus).size());
+		} finally {
+			extractor.shutdown();
+		}
+	}
+
+	private static void assertIdenticalOutputs(String format) throws Exception {
+		File sequentialCorpus = TestCorpus.emptyFolder("sequential-" + format);
+		File asyncIoCorpus = TestCorpus.emptyFolder("async-io-" + format);
+		TestCorpus.generate(sequentialCorpus);
+		TestCorpus.generate(asyncIoCorpus);
+		Logger logger = TestCorpus.mutedLogger();
+
+		TestCorpus.extractSequential(TestCorpus.listPdfFiles(sequentialCorpus), format, logger);
+		TestCorpus.extractAsyncIo(asyncIoCorpus, format, logger);
+
+		SortedMap<String, byte[]> sequential = TestCorpus.readOutputs(sequentialCorpus, format);
+		SortedMap<String, byte[]> asyncIo = TestCorpus.readOutputs(asyncIoCorpus, format);
+		assertFalse("No output in " + format + " format", sequential.isEmpty());
+		assertEquals("Output files", sequential.keySet(), asyncIo.keySet());
+		for(Map.Entry<String, byte[]> entry: sequential.entrySet()) {
+			assertTrue("Content of " + entry.getKey() + " differs", Arrays.equals(entry.getValue(), asyncIo.get(entry.getKey())));
+		}
+	}
+}
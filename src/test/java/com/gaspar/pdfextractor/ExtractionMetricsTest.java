@@ -0,0 +1,30 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that every PDF is counted by the {@link ExtractionMetrics} once it is done, also if the extraction throws.
+ * @author Gáspár Tamás
+ */
+public class ExtractionMetricsTest extends TestCase {
+
+	public void testRuntimeExceptionCountsAsFailed() throws Exception {
+		File corpus = TestCorpus.emptyFolder("metrics");
+		File broken = new File(corpus, "undefined-font.pdf"), good = new File(corpus, "good.pdf");
+		TestCorpus.writeUndefinedFontPdf(broken);
+		TestCorpus.writeTextPdf(good, 1, 20, 1);
+		ExtractionMetrics metrics = ExtractionMetrics.getInstance();
+		long queued = metrics.getFilesQueued(), failed = metrics.getFilesFailed(), done = metrics.getFilesDone();
+
+		metrics.filesFound(2);
+		TestCorpus.extractSequential(List.of(broken, good), CommandLineArguments.FORMAT_TXT, TestCorpus.mutedLogger());
+
+		assertEquals(failed + 1, metrics.getFilesFailed());
+		assertEquals(done + 1, metrics.getFilesDone());
+		assertEquals(queued, metrics.getFilesQueued());
+		assertEquals(0, metrics.getCurrentFiles().length);
+	}
+}
@@ -0,0 +1,98 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the grouping, the order and the latency report of the {@link FairScheduler}. No files are needed, only paths.
+ * @author Gáspár Tamás
+ */
+public class FairSchedulerTest extends TestCase {
+
+	private static final File FOLDER = new File("target/test-corpus/scheduler");
+
+	public void testGroupByFolder() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, CommandLineArguments.GROUP_BY_FOLDER, Collections.emptyMap());
+		assertEquals(FairScheduler.ROOT_GROUP, scheduler.groupOf(pdf("a.pdf")));
+		assertEquals("invoices", scheduler.groupOf(pdf("invoices/a.pdf")));
+		assertEquals("invoices", scheduler.groupOf(pdf("invoices/2021/march/a.pdf")));
+		assertEquals("hr", scheduler.groupOf(pdf("hr/../hr/a.pdf")));
+	}
+
+	public void testGroupByRegexWithCapturingGroup() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, "(\\d{4})-\\d{2}", Collections.emptyMap());
+		assertEquals("2021", scheduler.groupOf(pdf("invoices/2021-03/a.pdf")));
+		assertEquals("2022", scheduler.groupOf(pdf("report-2022-01.pdf")));
+		assertEquals(FairScheduler.UNMATCHED_GROUP, scheduler.groupOf(pdf("invoices/a.pdf")));
+		//the group did not take part in the match
+		scheduler = new FairScheduler(FOLDER, "(draft-)?report", Collections.emptyMap());
+		assertEquals("draft-", scheduler.groupOf(pdf("draft-report.pdf")));
+		assertEquals(FairScheduler.UNMATCHED_GROUP, scheduler.groupOf(pdf("report.pdf")));
+	}
+
+	public void testGroupByRegexWithoutCapturingGroup() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, "invoice|report", Collections.emptyMap());
+		assertEquals("invoice", scheduler.groupOf(pdf("2021/invoice-12.pdf")));
+		//the path is matched with '/' separators, relative to the folder
+		scheduler = new FairScheduler(FOLDER, "^[^/]+/[^/]+", Collections.emptyMap());
+		assertEquals("a/b", scheduler.groupOf(pdf("a/b/c.pdf")));
+		assertEquals(FairScheduler.UNMATCHED_GROUP, scheduler.groupOf(pdf("c.pdf")));
+	}
+
+	public void testWeightsAreInterleaved() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, CommandLineArguments.GROUP_BY_FOLDER, Map.of("big", 3));
+		List<File> pdfFiles = new ArrayList<>();
+		for(int i = 0; i < 9; i++) pdfFiles.add(pdf("big/" + i + ".pdf"));
+		for(int i = 0; i < 3; i++) pdfFiles.add(pdf("small/" + i + ".pdf"));
+		List<File> ordered = scheduler.schedule(pdfFiles);
+		assertEquals("big big small big big big small big big big small big", groups(scheduler, ordered));
+		//the order inside a group is kept
+		List<File> big = new ArrayList<>(ordered);
+		big.removeIf(file -> !scheduler.groupOf(file).equals("big"));
+		assertEquals(pdfFiles.subList(0, 9), big);
+	}
+
+	public void testEqualWeightsAlternateUntilAGroupRunsOut() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, CommandLineArguments.GROUP_BY_FOLDER, Collections.emptyMap());
+		List<File> ordered = scheduler.schedule(List.of(pdf("a/1.pdf"), pdf("a/2.pdf"), pdf("a/3.pdf"), pdf("a/4.pdf"), pdf("b/1.pdf"), pdf("root.pdf")));
+		assertEquals("a b . a a a", groups(scheduler, ordered));
+	}
+
+	public void testReportUsesNearestRankPercentiles() {
+		FairScheduler scheduler = new FairScheduler(FOLDER, CommandLineArguments.GROUP_BY_FOLDER, Map.of("slow", 2));
+		List<File> slow = new ArrayList<>(), fast = new ArrayList<>();
+		for(int i = 0; i < 20; i++) slow.add(pdf("slow/" + i + ".pdf"));
+		fast.add(pdf("fast/0.pdf"));
+		List<File> pdfFiles = new ArrayList<>(slow);
+		pdfFiles.addAll(fast);
+		pdfFiles.add(pdf("idle/0.pdf"));
+		scheduler.schedule(pdfFiles);
+		//latencies 1..20 in a mixed order
+		for(int i = 0; i < 20; i++) scheduler.fileDone(slow.get(i), (i * 7) % 20 + 1);
+		scheduler.fileDone(fast.get(0), 5);
+		scheduler.fileDone(pdf("unknown.pdf"), 1000); //not scheduled, ignored
+
+		String report = scheduler.describeLatencies();
+		assertTrue(report, report.contains("slow (súly: 2): 20 PDF, átlag: 11, medián: 10, 95%: 19, legnagyobb: 20"));
+		assertTrue(report, report.contains("fast (súly: 1): 1 PDF, átlag: 5, medián: 5, 95%: 5, legnagyobb: 5"));
+		assertFalse("Group without finished PDF files is reported", report.contains("idle"));
+	}
+
+	private static File pdf(String relativePath) {
+		return new File(FOLDER, relativePath);
+	}
+
+	private static String groups(FairScheduler scheduler, List<File> ordered) {
+		StringBuilder b = new StringBuilder();
+		for(File file: ordered) {
+			if(b.length() > 0) b.append(' ');
+			b.append(scheduler.groupOf(file));
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,74 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Extracts the text of the {@link TestCorpus} and compares it with the golden outputs in 'src/test/resources/golden'. Every
+ * output file must have a golden file with the same content, and there must be no output for the PDF files that are skipped
+ * or can't be extracted.
+ * <p>
+ * If the output is changed on purpose, the golden files can be regenerated with:
+ * <pre>{@code
+ * mvn test -Dtest=GoldenOutputTest -Dgolden.update=true
+ * }</pre>
+ * @author Gáspár Tamás
+ */
+public class GoldenOutputTest extends TestCase {
+
+	private static final File GOLDEN_FOLDER = new File("src/test/resources/golden");
+
+	public void testSequentialOutputMatchesGolden() throws Exception {
+		File corpus = TestCorpus.emptyFolder("golden");
+		TestCorpus.generate(corpus);
+		TestCorpus.extractSequential(TestCorpus.listPdfFiles(corpus), CommandLineArguments.FORMAT_TXT, TestCorpus.mutedLogger());
+		SortedMap<String, byte[]> outputs = TestCorpus.readOutputs(corpus, "txt");
+
+		if(Boolean.getBoolean("golden.update")) {
+			updateGolden(outputs);
+			return;
+		}
+		SortedMap<String, byte[]> golden = TestCorpus.readOutputs(GOLDEN_FOLDER, "txt");
+		assertEquals("Output files", golden.keySet(), outputs.keySet());
+		for(Map.Entry<String, byte[]> entry: golden.entrySet()) {
+			assertEquals("Content of " + entry.getKey(), normalize(entry.getValue()), normalize(outputs.get(entry.getKey())));
+		}
+	}
+
+	public void testSkippedAndFailedFilesHaveNoOutput() throws Exception {
+		File corpus = TestCorpus.emptyFolder("golden-special");
+		TestCorpus.generate(corpus);
+		File special = new File(corpus, "special");
+		TestCorpus.extractSequential(TestCorpus.listPdfFiles(special), CommandLineArguments.FORMAT_TXT, TestCorpus.mutedLogger());
+		for(String name: new String[] { "owner-password", "user-password", "truncated", "not-a-pdf" }) {
+			assertFalse(name + " should have no output", new File(special, name + ".txt").exists());
+		}
+		assertEquals("image-only should have an empty output", 0, new File(special, "image-only.txt").length());
+	}
+
+	/**
+	 * The text is written with the platform line separator between the pages, so the golden files are compared with
+	 * '\n' line breaks.
+	 */
+	private static String normalize(byte[] content) {
+		return new String(content, StandardCharsets.UTF_8).replace("\r\n", "\n");
+	}
+
+	private static void updateGolden(SortedMap<String, byte[]> outputs) throws IOException {
+		FileUtils.deleteDirectory(GOLDEN_FOLDER);
+		for(Map.Entry<String, byte[]> entry: outputs.entrySet()) {
+			File golden = new File(GOLDEN_FOLDER, entry.getKey());
+			golden.getParentFile().mkdirs();
+			Files.write(golden.toPath(), normalize(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+		}
+		System.out.println("Golden files updated in " + GOLDEN_FOLDER.getAbsolutePath());
+	}
+}
@@ -0,0 +1,149 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Writes small indexes with {@link InvertedIndex}, and checks the files and the search results of {@link IndexQuery}.
+ * @author Gáspár Tamás
+ */
+public class InvertedIndexTest extends TestCase {
+
+	private InvertedIndex registered;
+
+	@Override
+	protected void tearDown() {
+		if(registered != null) TextExtractor.removeListener(registered);
+	}
+
+	public void testSearchFindsPagesAndDocuments() throws Exception {
+		InvertedIndex index = new InvertedIndex();
+		add(index, "a.pdf", "Alpha beta", "beta gamma beta", "nothing here");
+		add(index, "b.pdf", "Beta, delta.");
+		add(index, "c.pdf", "gamma");
+		File folder = TestCorpus.emptyFolder("index-search");
+		index.write(folder);
+
+		IndexQuery query = new IndexQuery(folder);
+		assertEquals(3, query.getDocumentCount());
+		assertEquals(index.getTermCount(), query.getTermCount());
+		assertEquals(List.of("a.pdf", "b.pdf", "c.pdf"), Files.readAllLines(new File(folder, InvertedIndex.DOCUMENTS_FILE).toPath(), StandardCharsets.UTF_8));
+
+		Map<String, TreeSet<Integer>> beta = query.search("beta");
+		assertEquals(List.of("a.pdf", "b.pdf"), List.copyOf(beta.keySet()));
+		assertEquals(Set.of(1, 2), beta.get("a.pdf"));
+		assertEquals(Set.of(1), beta.get("b.pdf"));
+		assertEquals(Map.of("a.pdf", Set.of(2), "c.pdf", Set.of(1)), query.search("GAMMA"));
+		//all words must be on the same page
+		assertEquals(Map.of("a.pdf", Set.of(2)), query.search("beta", "gamma"));
+		assertTrue(query.search("alpha", "delta").isEmpty());
+		assertTrue(query.search("missing").isEmpty());
+	}
+
+	/**
+	 * Numbers above 127 take more than one byte, the exact bytes are checked so that the encoding can't change unnoticed.
+	 */
+	public void testPostingsAreDeltaAndVariableLengthEncoded() throws Exception {
+		InvertedIndex index = new InvertedIndex();
+		add(index, "first.pdf", "word");
+		String[] pages = new String[300];
+		StringBuilder page300 = new StringBuilder();
+		for(int i = 0; i < 128; i++) page300.append("word ");
+		pages[0] = "word";
+		pages[299] = page300.toString();
+		add(index, "second.pdf", pages);
+		File folder = TestCorpus.emptyFolder("index-encoding");
+		index.write(folder);
+
+		byte[] expected = {
+				0, 1, 1, //first.pdf, page 1, once
+				1, 1, 1, //second.pdf (+1), page 1 (the page starts again from 0 in a new document), once
+				0, (byte)0xAB, 0x02, (byte)0x80, 0x01 //second.pdf (+0), page 300 (+299), 128 times
+		};
+		byte[] postings = Files.readAllBytes(new File(folder, InvertedIndex.POSTINGS_FILE).toPath());
+		assertEquals(toList(expected), toList(postings));
+		int[] decoded = InvertedIndex.decodePostings(postings, 3);
+		assertEquals(List.of(0, 1, 1, 1, 1, 1, 1, 300, 128), toList(decoded));
+
+		Map<String, TreeSet<Integer>> result = new IndexQuery(folder).search("word");
+		assertEquals(Set.of(1), result.get("first.pdf"));
+		assertEquals(Set.of(1, 300), result.get("second.pdf"));
+	}
+
+	/**
+	 * Many documents and terms, so the document ids and the offsets in the postings file are large too.
+	 */
+	public void testManyDocuments() throws Exception {
+		InvertedIndex index = new InvertedIndex();
+		for(int document = 0; document < 300; document++) {
+			add(index, "doc" + document + ".pdf", "common unique" + document, "common");
+		}
+		File folder = TestCorpus.emptyFolder("index-many");
+		index.write(folder);
+
+		IndexQuery query = new IndexQuery(folder);
+		Map<String, TreeSet<Integer>> common = query.search("common");
+		assertEquals(300, common.size());
+		assertEquals("doc0.pdf", common.keySet().iterator().next());
+		for(TreeSet<Integer> pages: common.values()) {
+			assertEquals(Set.of(1, 2), pages);
+		}
+		assertEquals(Map.of("doc299.pdf", Set.of(1)), query.search("unique299"));
+		assertEquals(Map.of("doc150.pdf", Set.of(1)), query.search("common", "unique150"));
+	}
+
+	/**
+	 * A PDF whose text file can't be written is not indexed.
+	 */
+	public void testFailedWriteIsNotIndexed() throws Exception {
+		File corpus = TestCorpus.emptyFolder("index-failed-write");
+		File good = new File(corpus, "good.pdf"), blocked = new File(corpus, "blocked.pdf");
+		TestCorpus.writeTextPdf(good, 2, 50, 1);
+		TestCorpus.writeTextPdf(blocked, 2, 50, 2);
+		//a non-empty folder can't be replaced by the text file
+		Files.createDirectories(new File(corpus, "blocked.txt").toPath().resolve("inside"));
+		registered = new InvertedIndex();
+		TextExtractor.addListener(registered);
+		TestCorpus.extractSequential(List.of(good, blocked), CommandLineArguments.FORMAT_TXT, TestCorpus.mutedLogger());
+
+		assertEquals(1, registered.getDocumentCount());
+		File folder = new File(corpus, "index");
+		registered.write(folder);
+		assertEquals(List.of(good.getAbsolutePath()), List.copyOf(new IndexQuery(folder).search("the").keySet()));
+	}
+
+	/**
+	 * Adds a document to the index the same way the {@link TextExtractor} does.
+	 * @param pages Text of the pages, null for an empty page.
+	 */
+	private static void add(InvertedIndex index, String path, String... pages) {
+		DocumentListener document = index.documentStarted(path, pages.length);
+		for(int page = 1; page <= pages.length; page++) {
+			if(pages[page - 1] == null) continue;
+			document.pageExtracted(page, pages[page - 1]);
+			for(String token: pages[page - 1].split("\\s+")) {
+				if(!token.isEmpty()) document.token(page, token);
+			}
+		}
+		document.documentFinished();
+	}
+
+	private static List<Integer> toList(byte[] bytes) {
+		Integer[] values = new Integer[bytes.length];
+		for(int i = 0; i < bytes.length; i++) values[i] = bytes[i] & 0xFF;
+		return List.of(values);
+	}
+
+	private static List<Integer> toList(int[] ints) {
+		Integer[] values = new Integer[ints.length];
+		for(int i = 0; i < ints.length; i++) values[i] = ints[i];
+		return List.of(values);
+	}
+}
@@ -0,0 +1,92 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the parsing of the '-jobs' file, with the example of the README.
+ * @author Gáspár Tamás
+ */
+public class JobFileTest extends TestCase {
+
+	private File folder;
+
+	@Override
+	protected void setUp() throws Exception {
+		folder = TestCorpus.emptyFolder("jobs");
+		new File(folder, "szamlak").mkdirs();
+		new File(folder, "eves jelentesek").mkdirs();
+		new File(folder, "docs/2021 tavasz").mkdirs();
+		TestCorpus.writeTextPdf(new File(folder, "docs/2021 tavasz/document.pdf"), 1, 10, 1);
+	}
+
+	public void testReadmeExample() throws Exception {
+		List<JobFile.Job> jobs = read(
+				"# minden számla, felülírással",
+				"-mode=regex -folder=" + path("szamlak") + " -regex=.*2021.* -recursive -overwrite=all",
+				"-mode=single -path=\"" + path("docs/2021 tavasz/document.pdf") + "\"");
+		assertEquals(2, jobs.size());
+		CommandLineArguments regexJob = jobs.get(0).getArguments();
+		assertEquals(2, jobs.get(0).getLineNumber());
+		assertEquals(CommandLineArguments.MODE_REGEX, regexJob.getMode());
+		assertTrue(regexJob.isRecursive());
+		assertEquals(CommandLineArguments.OVERWRITE_ALL, regexJob.getOverwrite());
+		Pattern regex = Pattern.compile(regexJob.getRegex());
+		assertTrue(regex.matcher("szamla-2021-03.pdf").matches());
+		assertFalse(regex.matcher("szamla-2020-03.pdf").matches());
+		assertEquals(path("docs/2021 tavasz/document.pdf"), jobs.get(1).getArguments().getPath());
+	}
+
+	public void testCommentsAndBlankLinesAreSkipped() throws Exception {
+		List<JobFile.Job> jobs = read(
+				"",
+				"# comment",
+				"   ",
+				"  # indented comment",
+				"-mode=all -folder=" + path("szamlak"),
+				"");
+		assertEquals(1, jobs.size());
+		assertEquals(5, jobs.get(0).getLineNumber());
+	}
+
+	public void testQuotedValueWithSpaces() throws Exception {
+		List<JobFile.Job> jobs = read("-mode=all -folder=\"" + path("eves jelentesek") + "\"");
+		assertEquals(new File(folder, "eves jelentesek").getAbsoluteFile(), new File(jobs.get(0).getArguments().getFolder()).getAbsoluteFile());
+	}
+
+	public void testSplit() {
+		assertEquals(Arrays.asList("-a=1", "-b=x y", "-c="), Arrays.asList(JobFile.split("  -a=1\t-b=\"x y\"  -c=\"\" ")));
+	}
+
+	public void testInvalidLines() throws Exception {
+		assertInvalid("-mode=all -folder=" + path("szamlak"), "-unknown");
+		assertInvalid("-mode=all -folder=" + path("szamlak") + " -mute");
+		assertInvalid("-mode=all -folder=\"" + path("szamlak"));
+		assertInvalid("# only a comment");
+	}
+
+	private void assertInvalid(String... lines) throws Exception {
+		try {
+			read(lines);
+			fail("Invalid job file was accepted: " + Arrays.toString(lines));
+		} catch (IllegalArgumentException expected) {
+			//ok
+		}
+	}
+
+	private String path(String name) {
+		return new File(folder, name).getPath(); //relative, like in the README
+	}
+
+	private List<JobFile.Job> read(String... lines) throws Exception {
+		File jobFile = new File(folder, "jobs.txt");
+		Files.write(jobFile.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+		return JobFile.read(new CommandLineArguments(new String[] { "-jobs=" + jobFile.getPath() }));
+	}
+}
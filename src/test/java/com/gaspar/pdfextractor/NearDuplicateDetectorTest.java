@@ -0,0 +1,121 @@
+package com.gaspar.pdfextractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Feeds generated texts to the {@link NearDuplicateDetector} and checks the groups it finds.
+ * @author Gáspár Tamás
+ */
+public class NearDuplicateDetectorTest extends TestCase {
+
+	private static final int WORDS = 400;
+
+	public void testNearDuplicatesAreGrouped() {
+		String[] original = randomWords(1);
+		String[] edited = original.clone();
+		edited[100] = "changed";
+		edited[300] = "words";
+		String[] unrelated = randomWords(2);
+
+		NearDuplicateDetector detector = new NearDuplicateDetector();
+		add(detector, "b/original.pdf", original);
+		add(detector, "unrelated.pdf", unrelated);
+		add(detector, "a/edited.pdf", edited);
+		add(detector, "empty.pdf");
+
+		assertEquals(3, detector.getDocumentCount()); //the empty one has no signature
+		assertEquals(List.of(List.of("a/edited.pdf", "b/original.pdf")), detector.findClusters());
+	}
+
+	public void testSimilarityIsEstimatedFromShingles() {
+		String[] original = randomWords(3);
+		String[] edited = original.clone();
+		edited[200] = "changed";
+		//one changed word changes the 5 shingles it is in, out of 396
+		double similarity = NearDuplicateDetector.estimateSimilarity(signature(original), signature(edited));
+		assertTrue("Similarity: " + similarity, similarity > 0.9);
+		assertEquals(1.0, NearDuplicateDetector.estimateSimilarity(signature(original), signature(original.clone())));
+		assertTrue(NearDuplicateDetector.estimateSimilarity(signature(original), signature(randomWords(4))) < 0.1);
+	}
+
+	/**
+	 * Texts which share only a part are below the threshold, even though they have many equal shingles.
+	 */
+	public void testPartialOverlapIsNotDuplicate() {
+		String[] original = randomWords(5);
+		String[] half = original.clone();
+		String[] other = randomWords(6);
+		System.arraycopy(other, 0, half, WORDS / 2, WORDS / 2);
+		NearDuplicateDetector detector = new NearDuplicateDetector();
+		add(detector, "original.pdf", original);
+		add(detector, "half.pdf", half);
+		assertTrue(detector.findClusters().isEmpty());
+	}
+
+	/**
+	 * The result is the same in any order of extraction: largest group first, then by the first path.
+	 */
+	public void testClustersDoNotDependOnOrder() {
+		List<String[]> texts = new ArrayList<>();
+		List<String> paths = new ArrayList<>();
+		String[] triple = randomWords(7), pairOne = randomWords(8), pairTwo = randomWords(9);
+		for(int copy = 0; copy < 3; copy++) {
+			texts.add(editedCopy(triple, copy));
+			paths.add("z/triple" + copy + ".pdf");
+		}
+		for(int copy = 0; copy < 2; copy++) {
+			texts.add(editedCopy(pairTwo, copy));
+			paths.add("y/pair" + copy + ".pdf");
+			texts.add(editedCopy(pairOne, copy));
+			paths.add("x/pair" + copy + ".pdf");
+		}
+		List<List<String>> expected = List.of(
+				List.of("z/triple0.pdf", "z/triple1.pdf", "z/triple2.pdf"),
+				List.of("x/pair0.pdf", "x/pair1.pdf"),
+				List.of("y/pair0.pdf", "y/pair1.pdf"));
+		List<Integer> order = new ArrayList<>();
+		for(int i = 0; i < texts.size(); i++) order.add(i);
+		for(long seed = 0; seed < 5; seed++) {
+			Collections.shuffle(order, new Random(seed));
+			NearDuplicateDetector detector = new NearDuplicateDetector();
+			for(int i: order) add(detector, paths.get(i), texts.get(i));
+			assertEquals("Order " + order, expected, detector.findClusters());
+		}
+	}
+
+	private static String[] editedCopy(String[] words, int copy) {
+		String[] edited = words.clone();
+		edited[50 + copy * 100] = "edit" + copy;
+		return edited;
+	}
+
+	private static String[] randomWords(long seed) {
+		Random random = new Random(seed);
+		String[] words = new String[WORDS];
+		for(int i = 0; i < WORDS; i++) {
+			words[i] = "w" + random.nextInt(5000);
+		}
+		return words;
+	}
+
+	/**
+	 * Adds a text as one page, the same way the {@link TextExtractor} does.
+	 */
+	private static void add(NearDuplicateDetector detector, String path, String... words) {
+		DocumentListener document = detector.documentStarted(path, 1);
+		document.pageExtracted(1, String.join(" ", words));
+		for(String word: words) document.token(1, word);
+		document.documentFinished();
+	}
+
+	private static int[] signature(String[] words) {
+		NearDuplicateDetector detector = new NearDuplicateDetector();
+		add(detector, "signature.pdf", words);
+		return detector.signatureOf("signature.pdf");
+	}
+}
@@ -0,0 +1,112 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the back-pressure, the ordering, the cancellation and the error handling of the {@link PageTextPublisher}. The
+ * publisher runs on the calling thread, so every signal has arrived when {@link Flow.Subscription#request(long)} returns.
+ * @author Gáspár Tamás
+ */
+public class PageTextPublisherTest extends TestCase {
+
+	private static final Executor SAME_THREAD = Runnable::run;
+
+	private File folder;
+
+	@Override
+	protected void setUp() throws Exception {
+		folder = TestCorpus.emptyFolder("publisher");
+		TestCorpus.writeTextPdf(new File(folder, "first.pdf"), 3, 20, 1);
+		TestCorpus.writeTextPdf(new File(folder, "second.pdf"), 2, 20, 2);
+		TestCorpus.writeUndefinedFontPdf(new File(folder, "undefined-font.pdf"));
+	}
+
+	public void testRequestOneExtractsOnePage() {
+		RecordingSubscriber subscriber = subscribe("first.pdf", "second.pdf");
+		subscriber.subscription.request(1);
+		assertEquals(1, subscriber.pages.size());
+		assertFalse(subscriber.completed);
+		subscriber.subscription.request(1);
+		assertEquals(2, subscriber.pages.size());
+		assertFalse(subscriber.completed);
+	}
+
+	public void testPagesOfMultipleFilesAreInOrder() {
+		RecordingSubscriber subscriber = subscribe("first.pdf", "second.pdf");
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertEquals(Arrays.asList("first.pdf:1/3", "first.pdf:2/3", "first.pdf:3/3", "second.pdf:1/2", "second.pdf:2/2"), subscriber.pages);
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	public void testCancelClosesReader() {
+		RecordingSubscriber subscriber = subscribe("first.pdf");
+		subscriber.subscription.request(1);
+		PageTextPublisher.PageSubscription subscription = (PageTextPublisher.PageSubscription)subscriber.subscription;
+		assertTrue(subscription.hasOpenReader());
+		subscription.cancel();
+		assertFalse(subscription.hasOpenReader());
+		subscription.request(1);
+		assertEquals(1, subscriber.pages.size());
+		assertFalse(subscriber.completed);
+	}
+
+	public void testBadPdfIsSkipped() {
+		RecordingSubscriber subscriber = subscribe("undefined-font.pdf", "second.pdf");
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertEquals(Arrays.asList("second.pdf:1/2", "second.pdf:2/2"), subscriber.pages);
+		assertTrue(subscriber.completed);
+		assertNull(subscriber.error);
+	}
+
+	private RecordingSubscriber subscribe(String... names) {
+		List<String> paths = new ArrayList<>();
+		for(String name: names) {
+			paths.add(new File(folder, name).getPath());
+		}
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new PageTextPublisher(paths, TestCorpus.mutedLogger(), SAME_THREAD).subscribe(subscriber);
+		return subscriber;
+	}
+
+	/**
+	 * Records the signals, the pages as 'name:page/pageCount'.
+	 */
+	private static class RecordingSubscriber implements Flow.Subscriber<PageText> {
+
+		Flow.Subscription subscription;
+
+		final List<String> pages = new ArrayList<>();
+
+		boolean completed;
+
+		Throwable error;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(PageText page) {
+			pages.add(new File(page.getPath()).getName() + ":" + page.getPageNumber() + "/" + page.getPageCount());
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			this.error = error;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+}
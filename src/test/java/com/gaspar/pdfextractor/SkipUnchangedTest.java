@@ -0,0 +1,65 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that with '-skipUnchanged' a repeated extraction keeps the text files with the same content, but rewrites the
+ * ones which were changed since.
+ * @author Gáspár Tamás
+ */
+public class SkipUnchangedTest extends TestCase {
+
+	private static final FileTime OLD_TIME = FileTime.fromMillis(1_000_000_000_000L);
+
+	@Override
+	protected void tearDown() {
+		TextExtractor.setWriter(TextFileWriter.DEFAULT);
+	}
+
+	public void testUnchangedTextFilesAreNotRewritten() throws Exception {
+		assertUnchangedFilesAreNotRewritten(CommandLineArguments.FORMAT_TXT);
+	}
+
+	/**
+	 * In jsonl format the records are written while the pages are extracted, and compared when they are committed.
+	 */
+	public void testUnchangedJsonLinesFilesAreNotRewritten() throws Exception {
+		assertUnchangedFilesAreNotRewritten(CommandLineArguments.FORMAT_JSONL);
+	}
+
+	private static void assertUnchangedFilesAreNotRewritten(String format) throws Exception {
+		File corpus = TestCorpus.emptyFolder("skip-unchanged-" + format);
+		TestCorpus.generateMany(corpus, 3, 2);
+		List<File> pdfFiles = TestCorpus.listPdfFiles(corpus);
+		Logger logger = TestCorpus.mutedLogger();
+		TextExtractor.setWriter(new TextFileWriter(CommandLineArguments.DURABILITY_NONE, 0, 0, true));
+		TestCorpus.extractSequential(pdfFiles, format, logger);
+
+		Path[] textFiles = new Path[pdfFiles.size()];
+		for(int i = 0; i < textFiles.length; i++) {
+			textFiles[i] = new File(pdfFiles.get(i).getPath().replaceAll("\\.pdf$", "." + format)).toPath();
+		}
+		byte[] original = Files.readAllBytes(textFiles[1]);
+		Files.write(textFiles[1], "changed".getBytes(StandardCharsets.US_ASCII));
+		for(Path textFile: textFiles) {
+			Files.setLastModifiedTime(textFile, OLD_TIME);
+		}
+		TestCorpus.extractSequential(pdfFiles, format, logger);
+
+		assertEquals(OLD_TIME, Files.getLastModifiedTime(textFiles[0]));
+		assertEquals(OLD_TIME, Files.getLastModifiedTime(textFiles[2]));
+		assertFalse("Changed file was not rewritten", OLD_TIME.equals(Files.getLastModifiedTime(textFiles[1])));
+		assertTrue(Arrays.equals(original, Files.readAllBytes(textFiles[1])));
+		for(String name: corpus.list()) {
+			assertFalse("Temporary file left: " + name, name.endsWith(".tmp"));
+		}
+	}
+}
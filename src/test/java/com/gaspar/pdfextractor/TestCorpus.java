@@ -0,0 +1,257 @@
+package com.gaspar.pdfextractor;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfWriter;
+
+/**
+ * Generates the PDF files used by the regression tests, so no binary test data has to be stored. The content is
+ * generated from fixed seeds, so the extracted text is the same in every run and can be compared with the golden
+ * outputs in 'src/test/resources/golden'. The corpus contains:
+ * <ul>
+ * <li>text PDF files of different sizes, some of them in subfolders,</li>
+ * <li>Hungarian, German, Russian and Greek text, with the built-in fonts in different encodings,</li>
+ * <li>a PDF which is encrypted only with an owner password (skipped) and one with a user password (fails),</li>
+ * <li>a PDF that contains only an image (no text),</li>
+ * <li>a truncated PDF and a file which is not a PDF at all.</li>
+ * </ul>
+ * It also has helpers to run the extraction in the different execution modes, and to collect the results.
+ * @author Gáspár Tamás
+ */
+final class TestCorpus {
+
+	/**
+	 * Words of the generated English text.
+	 */
+	private static final String[] WORDS = ("the quick brown fox jumps over lazy dog text extraction page document file folder "
+			+ "invoice report minutes contract table figure value total amount date name number section chapter summary").split(" ");
+
+	private TestCorpus() {}
+
+	/**
+	 * Creates an empty folder for a test in 'target/test-corpus'.
+	 * @param name Name of the folder.
+	 * @return The folder.
+	 */
+	static File emptyFolder(String name) throws IOException {
+		File folder = new File("target/test-corpus", name);
+		FileUtils.deleteDirectory(folder);
+		folder.mkdirs();
+		return folder;
+	}
+
+	/**
+	 * Creates a logger which writes only the errors.
+	 */
+	static Logger mutedLogger() {
+		return new Logger(new CommandLineArguments(new String[] { "-mute" }));
+	}
+
+	/**
+	 * Lists the PDF files in a folder and its subfolders, the same way as the sequential mode does.
+	 */
+	static List<File> listPdfFiles(File folder) {
+		return (List<File>)FileUtils.listFiles(folder, new String[] { "pdf" }, true);
+	}
+
+	/**
+	 * Extracts the text from the PDF files one by one, like '-execution=sequential'.
+	 * @param format Output format.
+	 */
+	static void extractSequential(Collection<File> pdfFiles, String format, Logger logger) {
+		for(File pdfFile: pdfFiles) {
+			new TextExtractor(pdfFile.getAbsolutePath(), CommandLineArguments.OVERWRITE_ALL, format, logger).extractText();
+		}
+	}
+
+	/**
+	 * Extracts the text from the PDF files like '-execution=async-io'.
+	 * @param format Output format.
+	 */
+	static void extractAsyncIo(File folder, String format, Logger logger) {
+		AsyncIoExtractor extractor = new AsyncIoExtractor(logger);
+		try {
+			extractor.extractAll(extractor.listPdfFiles(folder, true), CommandLineArguments.OVERWRITE_ALL, format);
+		} finally {
+			extractor.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the output files of the extraction.
+	 * @param folder The corpus folder.
+	 * @param extension Extension of the output files, without the dot.
+	 * @return Path relative to the folder (with '/' separators), mapped to the content of the file.
+	 */
+	static SortedMap<String, byte[]> readOutputs(File folder, String extension) throws IOException {
+		SortedMap<String, byte[]> outputs = new TreeMap<>();
+		for(File file: FileUtils.listFiles(folder, new String[] { extension }, true)) {
+			String relativePath = folder.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+			outputs.put(relativePath, Files.readAllBytes(file.toPath()));
+		}
+		return outputs;
+	}
+
+	/**
+	 * Generates the corpus used by the golden output and execution mode tests.
+	 * @param folder The PDF files are generated into this folder, it is created if needed.
+	 */
+	static void generate(File folder) throws IOException, DocumentException {
+		new File(folder, "sizes").mkdirs();
+		new File(folder, "languages").mkdirs();
+		new File(folder, "special/nested").mkdirs();
+		writeTextPdf(new File(folder, "sizes/one-page.pdf"), 1, 120, 1);
+		writeTextPdf(new File(folder, "sizes/ten-pages.pdf"), 10, 250, 2);
+		writeTextPdf(new File(folder, "sizes/hundred-pages.pdf"), 100, 60, 3);
+		writeTextPdf(new File(folder, "sizes/empty-page.pdf"), 1, 0, 4);
+		writeLanguagePdf(new File(folder, "languages/hungarian.pdf"), BaseFont.CP1250,
+				"Árvíztűrő tükörfúrógép. A szövegkinyerés a PDF fájl minden oldaláról történik, az eredmény egy azonos nevű szövegfájlba kerül. Őszi időjárás, gyönyörű üdülő.");
+		writeLanguagePdf(new File(folder, "languages/german.pdf"), BaseFont.CP1252,
+				"Größere Dateien werden übersprungen. Die Straße führt zum Bürogebäude, äußerst schön. Grüße aus München.");
+		writeLanguagePdf(new File(folder, "languages/russian.pdf"), "Cp1251",
+				"Съешь же ещё этих мягких французских булок, да выпей чаю. Извлечение текста из каждой страницы документа.");
+		writeLanguagePdf(new File(folder, "languages/greek.pdf"), "Cp1253",
+				"Ξεσκεπάζω την ψυχοφθόρα βδελυγμία. Η εξαγωγή κειμένου γίνεται από κάθε σελίδα του εγγράφου.");
+		writeEncryptedPdf(new File(folder, "special/owner-password.pdf"), null);
+		writeEncryptedPdf(new File(folder, "special/user-password.pdf"), "secret".getBytes("UTF-8"));
+		writeImageOnlyPdf(new File(folder, "special/image-only.pdf"));
+		writeTextPdf(new File(folder, "special/nested/nested.pdf"), 3, 80, 5);
+		//malformed files
+		File complete = new File(folder, "special/nested/nested.pdf");
+		byte[] bytes = Files.readAllBytes(complete.toPath());
+		Files.write(new File(folder, "special/truncated.pdf").toPath(), Arrays.copyOf(bytes, bytes.length / 3));
+		Files.write(new File(folder, "special/not-a-pdf.pdf").toPath(), "This is not a PDF file.\n".getBytes("UTF-8"));
+	}
+
+	/**
+	 * Generates many small PDF files for the throughput test.
+	 * @param folder The PDF files are generated into this folder, it is created if needed.
+	 * @param count Number of PDF files.
+	 * @param pages Number of pages in each PDF.
+	 */
+	static void generateMany(File folder, int count, int pages) throws IOException, DocumentException {
+		folder.mkdirs();
+		for(int i = 0; i < count; i++) {
+			writeTextPdf(new File(folder, "document-" + i + ".pdf"), pages, 200, 100 + i);
+		}
+	}
+
+	/**
+	 * Writes a PDF with random English words.
+	 * @param pages Number of pages.
+	 * @param wordsPerPage Number of words on each page.
+	 * @param seed Seed of the words.
+	 */
+	static void writeTextPdf(File file, int pages, int wordsPerPage, long seed) throws IOException, DocumentException {
+		Random random = new Random(seed);
+		try(OutputStream out = new FileOutputStream(file)) {
+			Document document = new Document();
+			PdfWriter.getInstance(document, out);
+			document.open();
+			for(int page = 1; page <= pages; page++) {
+				if(page > 1) document.newPage();
+				StringBuilder text = new StringBuilder();
+				for(int word = 0; word < wordsPerPage; word++) {
+					text.append(WORDS[random.nextInt(WORDS.length)]).append(word % 12 == 11 ? ". " : " ");
+				}
+				if(wordsPerPage == 0) {
+					document.add(new Paragraph(" ")); //a document needs some content
+				} else {
+					document.add(new Paragraph(text.toString().trim()));
+				}
+			}
+			document.close();
+		}
+	}
+
+	/**
+	 * Writes a one page PDF whose content uses the font '/F9', which is not defined in the resources of the page.
+	 * iText throws a runtime exception (not an IOException) when it extracts the text of this page.
+	 */
+	static void writeUndefinedFontPdf(File file) throws IOException, DocumentException {
+		try(OutputStream out = new FileOutputStream(file)) {
+			Document document = new Document();
+			PdfWriter writer = PdfWriter.getInstance(document, out);
+			document.open();
+			writer.getDirectContent().setLiteral("BT /F9 12 Tf 72 700 Td (undefined font) Tj ET\n");
+			document.close();
+		}
+	}
+
+	/**
+	 * Writes a two page PDF with the text, using a built-in font in the given encoding.
+	 */
+	private static void writeLanguagePdf(File file, String encoding, String text) throws IOException, DocumentException {
+		Font font = new Font(BaseFont.createFont(BaseFont.HELVETICA, encoding, BaseFont.NOT_EMBEDDED), 12);
+		try(OutputStream out = new FileOutputStream(file)) {
+			Document document = new Document();
+			PdfWriter.getInstance(document, out);
+			document.open();
+			document.add(new Paragraph(text, font));
+			document.newPage();
+			document.add(new Paragraph(text.toUpperCase(), font));
+			document.close();
+		}
+	}
+
+	/**
+	 * Writes an encrypted PDF.
+	 * @param userPassword Needed to open the PDF, or null if it can be opened without a password.
+	 */
+	private static void writeEncryptedPdf(File file, byte[] userPassword) throws IOException, DocumentException {
+		try(OutputStream out = new FileOutputStream(file)) {
+			Document document = new Document();
+			PdfWriter writer = PdfWriter.getInstance(document, out);
+			writer.setEncryption(userPassword, "owner".getBytes("UTF-8"), PdfWriter.ALLOW_PRINTING, PdfWriter.ENCRYPTION_AES_128);
+			document.open();
+			document.add(new Paragraph("This text is encrypted."));
+			document.close();
+		}
+	}
+
+	/**
+	 * Writes a PDF that has only an image, like a scanned document.
+	 */
+	private static void writeImageOnlyPdf(File file) throws IOException, DocumentException {
+		BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, 200, 100);
+		graphics.setColor(Color.BLACK);
+		graphics.fillRect(20, 40, 160, 20);
+		graphics.dispose();
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", png);
+		try(OutputStream out = new FileOutputStream(file)) {
+			Document document = new Document();
+			PdfWriter.getInstance(document, out);
+			document.open();
+			document.add(Image.getInstance(png.toByteArray()));
+			document.close();
+		}
+	}
+}
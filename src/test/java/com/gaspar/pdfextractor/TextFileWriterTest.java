@@ -0,0 +1,82 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks when the {@link TextFileWriter} reports the text files as written, and that no temporary file is left behind.
+ * @author Gáspár Tamás
+ */
+public class TextFileWriterTest extends TestCase {
+
+	private final List<String> reports = new ArrayList<>();
+
+	public void testReportedImmediatelyWithoutGroup() throws Exception {
+		File folder = TestCorpus.emptyFolder("writer-none");
+		Path file = new File(folder, "a.txt").toPath();
+		TextFileWriter writer = new TextFileWriter(CommandLineArguments.DURABILITY_FILE, 0, 0, false);
+		assertEquals(5, writer.write(file, "hello", StandardCharsets.UTF_8, failure -> report(file, failure)));
+		assertEquals(List.of("a.txt: ok"), reports);
+		assertEquals("hello", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		assertEquals(1, folder.list().length);
+	}
+
+	public void testGroupReportsAfterCommit() throws Exception {
+		File folder = TestCorpus.emptyFolder("writer-group");
+		Path file = new File(folder, "a.txt").toPath();
+		TextFileWriter writer = new TextFileWriter(CommandLineArguments.DURABILITY_GROUP, 100, 60_000, false);
+		writer.write(file, "hello", StandardCharsets.UTF_8, failure -> report(file, failure));
+		assertTrue("Reported before the commit", reports.isEmpty());
+		assertFalse(Files.exists(file));
+		writer.close();
+		assertEquals(List.of("a.txt: ok"), reports);
+		assertEquals("hello", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	public void testGroupReportsFailedRename() throws Exception {
+		File folder = TestCorpus.emptyFolder("writer-group-failure");
+		//a non-empty folder can't be replaced by the rename
+		Path blocked = new File(folder, "blocked.txt").toPath();
+		Files.createDirectories(blocked.resolve("inside"));
+		Path file = new File(folder, "a.txt").toPath();
+		TextFileWriter writer = new TextFileWriter(CommandLineArguments.DURABILITY_GROUP, 2, 60_000, false);
+		writer.write(blocked, "blocked", StandardCharsets.UTF_8, failure -> report(blocked, failure));
+		writer.write(file, "hello", StandardCharsets.UTF_8, failure -> report(file, failure)); //the group is full, committed here
+		assertEquals(List.of("blocked.txt: failed", "a.txt: ok"), reports);
+		assertTrue(Files.isDirectory(blocked));
+		String[] names = folder.list();
+		Arrays.sort(names);
+		assertEquals(List.of("a.txt", "blocked.txt"), List.of(names));
+		writer.close();
+	}
+
+	/**
+	 * Temporary files left by a killed run are deleted when the first text file is written into their folder.
+	 */
+	public void testStaleTemporaryFilesAreDeleted() throws Exception {
+		File folder = TestCorpus.emptyFolder("writer-stale");
+		String[] stale = { ".a.txt.7.tmp", ".other.txt.123.tmp" };
+		String[] kept = { ".hidden.tmp", "notes.tmp", "b.txt" };
+		for(String name: stale) Files.write(new File(folder, name).toPath(), new byte[] { 1 });
+		for(String name: kept) Files.write(new File(folder, name).toPath(), new byte[] { 1 });
+		TextFileWriter writer = new TextFileWriter(CommandLineArguments.DURABILITY_GROUP, 100, 60_000, false);
+		Path file = new File(folder, "a.txt").toPath();
+		writer.write(file, "hello", StandardCharsets.UTF_8, failure -> report(file, failure));
+		writer.close();
+		String[] names = folder.list();
+		Arrays.sort(names);
+		assertEquals(List.of(".hidden.tmp", "a.txt", "b.txt", "notes.tmp"), List.of(names));
+	}
+
+	private void report(Path file, IOException failure) {
+		reports.add(file.getFileName() + (failure == null ? ": ok" : ": failed"));
+	}
+}
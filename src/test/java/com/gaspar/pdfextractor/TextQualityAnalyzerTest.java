@@ -0,0 +1,63 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs the {@link TextQualityAnalyzer} over the {@link TestCorpus}, and checks the guessed languages and the flags.
+ * @author Gáspár Tamás
+ */
+public class TextQualityAnalyzerTest extends TestCase {
+
+	public void testCorpusLanguages() throws Exception {
+		File corpus = TestCorpus.emptyFolder("quality");
+		TestCorpus.generate(corpus);
+		TextQualityAnalyzer analyzer = new TextQualityAnalyzer();
+		TextExtractor.addListener(analyzer);
+		try {
+			TestCorpus.extractSequential(TestCorpus.listPdfFiles(corpus), CommandLineArguments.FORMAT_TXT, TestCorpus.mutedLogger());
+		} finally {
+			TextExtractor.removeListener(analyzer);
+		}
+		Map<String, TextQualityAnalyzer.Result> results = new HashMap<>();
+		for(TextQualityAnalyzer.Result result: analyzer.getResults()) {
+			String relativePath = corpus.getAbsoluteFile().toPath().relativize(new File(result.getPath()).getAbsoluteFile().toPath()).toString();
+			results.put(relativePath.replace(File.separatorChar, '/'), result);
+		}
+		assertLanguage(results, "sizes/one-page.pdf", "en");
+		assertLanguage(results, "sizes/ten-pages.pdf", "en");
+		assertLanguage(results, "sizes/hundred-pages.pdf", "en");
+		assertLanguage(results, "special/nested/nested.pdf", "en");
+		assertLanguage(results, "languages/hungarian.pdf", "hu");
+		assertLanguage(results, "languages/german.pdf", "de");
+		assertLanguage(results, "languages/russian.pdf", "cyrillic");
+		assertLanguage(results, "languages/greek.pdf", "greek");
+		assertLanguage(results, "sizes/empty-page.pdf", TextQualityAnalyzer.UNKNOWN_LANGUAGE);
+		assertEquals("nincs szöveg", results.get("special/image-only.pdf").getFlagReason());
+		assertNull(results.get("languages/hungarian.pdf").getFlagReason());
+	}
+
+	public void testSampleTexts() {
+		assertEquals("fr", guess("Nous avons reçu votre demande et nous vous répondrons dans les plus brefs délais. Merci de votre patience."));
+		assertEquals("es", guess("Hemos recibido su solicitud y le responderemos lo antes posible. Muchas gracias por su paciencia."));
+		assertEquals("en", guess("We have received your request and we will answer as soon as possible. Thank you for your patience."));
+		assertEquals("hu", guess("Megkaptuk a kérését, és a lehető leghamarabb válaszolni fogunk rá. Köszönjük a türelmét."));
+		assertEquals("de", guess("Wir haben Ihre Anfrage erhalten und werden sie so schnell wie möglich beantworten. Vielen Dank für Ihre Geduld."));
+	}
+
+	public void testNoCloseLanguageIsUnknown() {
+		assertEquals(TextQualityAnalyzer.UNKNOWN_LANGUAGE, guess("xqzv kjwp zzxq vvkj qqwx pkzj"));
+	}
+
+	private static String guess(String text) {
+		return TextQualityAnalyzer.guessLatinLanguage(TextQualityAnalyzer.languageSample(text));
+	}
+
+	private static void assertLanguage(Map<String, TextQualityAnalyzer.Result> results, String path, String language) {
+		assertNotNull("No result for " + path, results.get(path));
+		assertEquals("Language of " + path, language, results.get(path).getLanguage());
+	}
+}
@@ -0,0 +1,54 @@
+package com.gaspar.pdfextractor;
+
+import java.io.File;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Extracts many small generated PDF files in every execution mode, and fails if the throughput is below a threshold. The
+ * threshold is low, so that it passes on slow build machines, it only catches big regressions (for example a change that
+ * makes the extraction quadratic). It can be changed with the 'throughput.minPagesPerSecond' system property:
+ * <pre>{@code
+ * mvn test -Dtest=ThroughputSmokeTest -Dthroughput.minPagesPerSecond=200
+ * }</pre>
+ * @author Gáspár Tamás
+ */
+public class ThroughputSmokeTest extends TestCase {
+
+	private static final int DOCUMENTS = 40;
+
+	private static final int PAGES_PER_DOCUMENT = 5;
+
+	private static final double DEFAULT_MIN_PAGES_PER_SECOND = 25;
+
+	public void testSequentialThroughput() throws Exception {
+		File corpus = TestCorpus.emptyFolder("throughput-sequential");
+		TestCorpus.generateMany(corpus, DOCUMENTS, PAGES_PER_DOCUMENT);
+		Logger logger = TestCorpus.mutedLogger();
+		TestCorpus.extractSequential(TestCorpus.listPdfFiles(corpus), CommandLineArguments.FORMAT_TXT, logger); //warm-up
+
+		long start = System.nanoTime();
+		TestCorpus.extractSequential(TestCorpus.listPdfFiles(corpus), CommandLineArguments.FORMAT_TXT, logger);
+		assertThroughput("sequential", start);
+	}
+
+	public void testAsyncIoThroughput() throws Exception {
+		File corpus = TestCorpus.emptyFolder("throughput-async-io");
+		TestCorpus.generateMany(corpus, DOCUMENTS, PAGES_PER_DOCUMENT);
+		Logger logger = TestCorpus.mutedLogger();
+		TestCorpus.extractAsyncIo(corpus, CommandLineArguments.FORMAT_TXT, logger); //warm-up
+
+		long start = System.nanoTime();
+		TestCorpus.extractAsyncIo(corpus, CommandLineArguments.FORMAT_TXT, logger);
+		assertThroughput("async-io", start);
+	}
+
+	private static void assertThroughput(String mode, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double pagesPerSecond = DOCUMENTS * PAGES_PER_DOCUMENT / seconds;
+		double minimum = Double.parseDouble(System.getProperty("throughput.minPagesPerSecond", String.valueOf(DEFAULT_MIN_PAGES_PER_SECOND)));
+		System.out.println(String.format(Locale.ROOT, "Áteresztőképesség (%s): %.1f oldal/s, minimum: %.1f oldal/s", mode, pagesPerSecond, minimum));
+		assertTrue(mode + " throughput is " + pagesPerSecond + " pages/s, below the minimum " + minimum, pagesPerSecond >= minimum);
+	}
+}